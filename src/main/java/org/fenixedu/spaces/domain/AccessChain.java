@@ -0,0 +1,144 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.bennu.core.domain.groups.PersistentGroup;
+import org.fenixedu.bennu.core.groups.Group;
+import org.fenixedu.bennu.core.groups.NobodyGroup;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Immutable chain of responsibility of one kind of access group: the access groups of a space and of each of its
+ * ancestors.
+ *
+ * Membership is checked group by group instead of through a composed {@link Group#or(Group)} chain, and the answer of each
+ * group for each user is kept for a short while. Sibling spaces inherit the same ancestor groups, so checking a user
+ * against many spaces asks each group once. The chain remembers the spaces it walked and their groups, so it can check it
+ * still holds after a reparenting without composing anything.
+ *
+ * @see Space#getOccupationsGroupWithChainOfResponsability()
+ * @see Space#getManagementGroupWithChainOfResponsability()
+ */
+final class AccessChain {
+
+    private static final Cache<Membership, Boolean> MEMBERSHIPS = CacheBuilder.newBuilder()
+            .expireAfterWrite(30, TimeUnit.SECONDS).maximumSize(100000).build();
+
+    private final Space[] spaces;
+    private final PersistentGroup[] groups;
+    private volatile Group group;
+
+    private AccessChain(Space[] spaces, PersistentGroup[] groups) {
+        this.spaces = spaces;
+        this.groups = groups;
+    }
+
+    static AccessChain of(Space space, Function<Space, PersistentGroup> accessGroup) {
+        final List<Space> spaces = new ArrayList<>();
+        final List<PersistentGroup> groups = new ArrayList<>();
+        for (Space current = space; current != null; current = current.getParent()) {
+            spaces.add(current);
+            groups.add(accessGroup.apply(current));
+        }
+        return new AccessChain(spaces.toArray(new Space[spaces.size()]), groups.toArray(new PersistentGroup[groups.size()]));
+    }
+
+    /**
+     * Whether the given space still has the ancestors and access groups this chain was built from.
+     */
+    boolean isValidFor(Space space, Function<Space, PersistentGroup> accessGroup) {
+        int i = 0;
+        for (Space current = space; current != null; current = current.getParent(), i++) {
+            if (i == spaces.length || current != spaces[i] || accessGroup.apply(current) != groups[i]) {
+                return false;
+            }
+        }
+        return i == spaces.length;
+    }
+
+    /**
+     * The access groups of the chain composed with {@link Group#or(Group)}, from the space up to the top level space.
+     */
+    Group getGroup() {
+        Group group = this.group;
+        if (group == null) {
+            for (int i = groups.length - 1; i >= 0; i--) {
+                final Group accessGroup = groups[i] != null ? groups[i].toGroup() : NobodyGroup.get();
+                group = group == null ? accessGroup : accessGroup.or(group);
+            }
+            this.group = group;
+        }
+        return group;
+    }
+
+    boolean isMember(User user) {
+        for (PersistentGroup group : groups) {
+            if (group != null && isMember(group, user)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the user is a member of the group, as answered in the last few seconds.
+     */
+    static boolean isMember(PersistentGroup group, User user) {
+        final Membership membership = new Membership(group, user);
+        Boolean member = MEMBERSHIPS.getIfPresent(membership);
+        if (member == null) {
+            member = group.toGroup().isMember(user);
+            MEMBERSHIPS.put(membership, member);
+        }
+        return member;
+    }
+
+    private static final class Membership {
+        private final PersistentGroup group;
+        private final User user;
+
+        private Membership(PersistentGroup group, User user) {
+            this.group = group;
+            this.user = user;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Membership) {
+                final Membership other = (Membership) obj;
+                return group == other.group && user == other.user;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(group, user);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.bennu.core.domain.groups.PersistentGroup;
+
+/**
+ * The spaces a user may occupy, resolved by walking the space tree once from the top level spaces.
+ *
+ * Occupation groups are inherited, so membership is carried down the tree and each access group is only asked about
+ * spaces below the point where the user was not yet a member. Spaces the walk did not reach, such as those under a
+ * deleted space, are checked one by one with {@link Space#isOccupationMember(User)}.
+ */
+public final class AuthorizedSpaces {
+
+    private final User user;
+    private final Set<Space> visited;
+    private final Set<Space> authorized;
+
+    private AuthorizedSpaces(User user, Set<Space> visited, Set<Space> authorized) {
+        this.user = user;
+        this.visited = visited;
+        this.authorized = authorized;
+    }
+
+    public static AuthorizedSpaces forOccupations(User user) {
+        final Set<Space> visited = new HashSet<>();
+        final Set<Space> authorized = new HashSet<>();
+        final Deque<Space> pending = new ArrayDeque<>();
+        for (Space space : Space.getTopLevelSpaces()) {
+            pending.push(space);
+        }
+        while (!pending.isEmpty()) {
+            final Space space = pending.pop();
+            if (!visited.add(space)) {
+                continue;
+            }
+            final Space parent = space.getParent();
+            final PersistentGroup group = space.getOccupationsAccessGroup();
+            if ((parent != null && authorized.contains(parent)) || (group != null && AccessChain.isMember(group, user))) {
+                authorized.add(space);
+            }
+            for (Space child : space.getChildrenSet()) {
+                pending.push(child);
+            }
+        }
+        return new AuthorizedSpaces(user, visited, authorized);
+    }
+
+    public boolean contains(Space space) {
+        return visited.contains(space) ? authorized.contains(space) : space.isOccupationMember(user);
+    }
+
+    /**
+     * the spaces below the top level spaces the user may occupy, active or not
+     */
+    public Set<Space> getSpaces() {
+        return Collections.unmodifiableSet(authorized);
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Strings;
+
+/**
+ * Immutable map from blueprint number to the children of a space that are active at some instant.
+ *
+ * Along with the map, the index remembers the information timeline of each child, whether it was attached to Bennu and
+ * the period around the instant during which none of the children changes information. Any instant in that period gets
+ * the same map, so rendering a blueprint, which looks up every text of the drawing at the same date, builds it once.
+ *
+ * @see Space#getChildrenByBlueprintNumber(org.joda.time.DateTime)
+ */
+final class ChildrenByBlueprint {
+
+    private final Space[] children;
+    private final InformationTimeline[] timelines;
+    private final boolean[] attached;
+    private final long from;
+    private final long until;
+    private final Map<String, Space> byNumber;
+
+    private ChildrenByBlueprint(Space[] children, InformationTimeline[] timelines, boolean[] attached, long from, long until,
+            Map<String, Space> byNumber) {
+        this.children = children;
+        this.timelines = timelines;
+        this.attached = attached;
+        this.from = from;
+        this.until = until;
+        this.byNumber = byNumber;
+    }
+
+    static ChildrenByBlueprint of(Set<Space> childrenSet, long instant) {
+        final Space[] children = childrenSet.toArray(new Space[childrenSet.size()]);
+        final InformationTimeline[] timelines = new InformationTimeline[children.length];
+        final boolean[] attached = new boolean[children.length];
+        final Map<String, Space> byNumber = new HashMap<>();
+        long from = Long.MIN_VALUE;
+        long until = Long.MAX_VALUE;
+        for (int i = 0; i < children.length; i++) {
+            timelines[i] = children[i].getTimeline();
+            attached[i] = children[i].getBennu() != null;
+            final InformationTimeline.Snapshot snapshot = timelines[i].snapshotAt(instant);
+            from = Math.max(from, snapshot.getFrom());
+            until = Math.min(until, snapshot.getUntil());
+            if (attached[i] && snapshot.getInformation().isPresent()) {
+                final String blueprintNumber = snapshot.getInformation().get().getBlueprintNumber();
+                if (!Strings.isNullOrEmpty(blueprintNumber)) {
+                    byNumber.putIfAbsent(blueprintNumber, children[i]);
+                }
+            }
+        }
+        return new ChildrenByBlueprint(children, timelines, attached, from, until, Collections.unmodifiableMap(byNumber));
+    }
+
+    /**
+     * Whether this index was built from exactly the given children, each with the information and attachment it has now,
+     * for an instant in the same period as the given one.
+     */
+    boolean isValidFor(Set<Space> childrenSet, long instant) {
+        if (instant < from || instant >= until || childrenSet.size() != children.length) {
+            return false;
+        }
+        for (int i = 0; i < children.length; i++) {
+            final Space child = children[i];
+            if (!childrenSet.contains(child) || child.getTimeline() != timelines[i] || (child.getBennu() != null) != attached[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Map<String, Space> getChildren() {
+        return byNumber;
+    }
+}
@@ -21,6 +21,7 @@ package org.fenixedu.spaces.domain;
 import java.math.BigDecimal;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.fenixedu.bennu.core.domain.User;
@@ -33,7 +34,6 @@ import pt.ist.fenixframework.Atomic.TxMode;
 
 import com.google.common.collect.Lists;
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 
 public class Information extends Information_Base {
 
@@ -46,6 +46,45 @@ public class Information extends Information_Base {
 
     };
 
+    static final ValidityChain.Nodes<Information> CHAIN_NODES = new ValidityChain.Nodes<Information>() {
+
+        @Override
+        public long start(Information node) {
+            return node.getValidFrom().getMillis();
+        }
+
+        @Override
+        public long end(Information node) {
+            return node.getValidUntil() == null ? Long.MAX_VALUE : node.getValidUntil().getMillis();
+        }
+
+        @Override
+        public Information previous(Information node) {
+            return node.getPrevious();
+        }
+
+        @Override
+        public void link(Information node, Information previous) {
+            node.setPrevious(previous);
+        }
+
+        @Override
+        public Information copy(Information node) {
+            return node.copy();
+        }
+
+        @Override
+        public Information keepLeft(Information node, Information inserted) {
+            return node.keepLeft(inserted.getValidFrom());
+        }
+
+        @Override
+        public Information keepRight(Information node, Information inserted) {
+            return node.keepRight(inserted.getValidUntil());
+        }
+
+    };
+
     public static class Builder {
         private Integer allocatableCapacity;
         private String blueprintNumber;
@@ -229,31 +268,7 @@ public class Information extends Information_Base {
 
     @SuppressWarnings("unchecked")
     public <T extends Object> Optional<T> getMetadata(String field) {
-        Optional<JsonElement> spec = getClassification().getMetadataSpecJson(field);
-        if (spec.isPresent()) {
-            JsonObject jsObj = spec.get().getAsJsonObject();
-            final String type = jsObj.get("type").getAsString();
-            final JsonObject metadata = getMetadata().getAsJsonObject();
-
-            JsonElement fieldValue = metadata.get(field);
-
-            if (fieldValue == null || fieldValue.isJsonNull()) {
-                return Optional.empty();
-            }
-
-            if (Boolean.class.getName().equalsIgnoreCase(type)) {
-                return (Optional<T>) Optional.of(new Boolean(fieldValue.getAsBoolean()));
-            }
-            if (Integer.class.getName().equalsIgnoreCase(type)) {
-                return (Optional<T>) Optional.of(new Integer(fieldValue.getAsInt()));
-            }
-            if (BigDecimal.class.getName().equalsIgnoreCase(type)) {
-                return (Optional<T>) Optional.of(fieldValue.getAsBigDecimal());
-            }
-
-            return (Optional<T>) Optional.of(new String(fieldValue.getAsString()));
-        }
-        return Optional.empty();
+        return Optional.ofNullable((T) getClassification().getMetadataSchema().decode(field, getMetadata()));
     }
 
     protected Information copy() {
@@ -313,6 +328,38 @@ public class Information extends Information_Base {
         return new Interval(getValidFrom(), getValidUntil() == null ? new DateTime(Long.MAX_VALUE) : getValidUntil());
     }
 
+    /**
+     * Does the other information describe the space exactly like this one, regardless of validity, author and creation
+     * date.
+     */
+    protected boolean hasSameAttributes(Information other) {
+        final boolean sameArea =
+                getArea() == null ? other.getArea() == null : other.getArea() != null && getArea().compareTo(other.getArea()) == 0;
+        return sameArea && Objects.equals(getAllocatableCapacity(), other.getAllocatableCapacity())
+                && Objects.equals(getBlueprintNumber(), other.getBlueprintNumber()) && Objects.equals(getName(), other.getName())
+                && Objects.equals(getIdentification(), other.getIdentification())
+                && Objects.equals(getMetadata(), other.getMetadata())
+                && Objects.equals(getClassification(), other.getClassification())
+                && Objects.equals(getBlueprint(), other.getBlueprint());
+    }
+
+    /**
+     * Deletes an information no longer reachable from any chain of its space. Blueprint files are kept, since they may be
+     * shared with other information. An information that is still the current information of some space is never deleted.
+     */
+    protected void delete() {
+        if (!getSpaceSet().isEmpty()) {
+            throw new SpaceDomainException("error.Information.still.current");
+        }
+        getInformationSet().clear();
+        setPrevious(null);
+        setSpaceHistory(null);
+        setClassification(null);
+        setBlueprint(null);
+        setUser(null);
+        deleteDomainObject();
+    }
+
     @Override
     public void setPrevious(Information previous) {
         if (previous == this) {
@@ -0,0 +1,226 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.joda.time.DateTime;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * The information history a space no longer keeps as domain objects, as a single json record.
+ *
+ * The record holds each archived information once, in "nodes", and each archived chain as the indexes of its nodes from
+ * the most recent to the oldest, in "versions". Chains share most of their nodes, so this takes far less than one copy of
+ * each chain.
+ */
+public class InformationArchive extends InformationArchive_Base {
+
+    protected InformationArchive(Space space) {
+        super();
+        setSpace(space);
+        JsonObject record = new JsonObject();
+        record.add("nodes", new JsonArray());
+        record.add("versions", new JsonArray());
+        setRecord(record);
+    }
+
+    /**
+     * Compacts the information of a space. Adjacent information with the same attributes is merged into one, and the history
+     * heads created before the given date are moved to the space's archive. Information that is no longer reachable from the
+     * current chain or from the remaining history, nor the current information of another space, is deleted.
+     *
+     * @return how many information objects were deleted
+     */
+    public static int compact(Space space, DateTime archiveBefore) {
+        final Set<Information> before = reachable(space.getCurrent(), space.getHistorySet());
+
+        final Information current = merge(space.getCurrent());
+        if (current != space.getCurrent()) {
+            space.setCurrent(current);
+        }
+
+        final List<Information> archived =
+                space.getHistorySet().stream().filter(head -> head.getCreated().isBefore(archiveBefore))
+                        .sorted(Information.CREATION_DATE_COMPARATOR).collect(Collectors.toList());
+        if (!archived.isEmpty()) {
+            InformationArchive archive = space.getInformationArchive();
+            if (archive == null) {
+                archive = new InformationArchive(space);
+            }
+            archive.append(archived);
+            archived.forEach(space::removeHistory);
+        }
+
+        final Set<Information> kept = reachable(current, space.getHistorySet());
+        int reclaimed = 0;
+        for (Information information : before) {
+            // a node may still be the current information of another space, which keeps it alive
+            if (!kept.contains(information) && information.getSpaceSet().isEmpty()) {
+                information.delete();
+                reclaimed++;
+            }
+        }
+        return reclaimed;
+    }
+
+    private static Set<Information> reachable(Information current, Collection<Information> history) {
+        final Set<Information> reachable = new HashSet<>();
+        addChain(reachable, current);
+        history.forEach(head -> addChain(reachable, head));
+        return reachable;
+    }
+
+    private static void addChain(Set<Information> reachable, Information head) {
+        // chains share their older nodes, so each one is only walked until it reaches a node already seen
+        Information information = head;
+        while (information != null && reachable.add(information)) {
+            information = information.getPrevious();
+        }
+    }
+
+    /**
+     * Merges the runs of adjacent information with the same attributes in the chain that starts at the given head. Like
+     * {@link ValidityChain}, only the nodes up to the oldest merged one are created anew; the rest of the chain is shared.
+     *
+     * @return the head of the merged chain, or the given head if there was nothing to merge
+     */
+    private static Information merge(Information head) {
+        final List<Information> chain = new ArrayList<>();
+        for (Information information = head; information != null; information = information.getPrevious()) {
+            chain.add(information);
+        }
+        int shared = 0;
+        for (int i = chain.size() - 2; i >= 0 && shared == 0; i--) {
+            if (isMergeable(chain.get(i), chain.get(i + 1))) {
+                shared = i + 2;
+            }
+        }
+        if (shared == 0) {
+            return head;
+        }
+
+        final List<Information> created = new ArrayList<>();
+        for (int newest = 0; newest < shared;) {
+            int oldest = newest;
+            while (oldest + 1 < shared && isMergeable(chain.get(oldest), chain.get(oldest + 1))) {
+                oldest++;
+            }
+            final Information merged = chain.get(oldest).copy();
+            merged.setUser(chain.get(oldest).getUser());
+            merged.setValidUntil(chain.get(newest).getValidUntil());
+            created.add(merged);
+            newest = oldest + 1;
+        }
+        final Information suffix = shared < chain.size() ? chain.get(shared) : null;
+        for (int i = 0; i < created.size(); i++) {
+            created.get(i).setPrevious(i + 1 < created.size() ? created.get(i + 1) : suffix);
+        }
+        return created.get(0);
+    }
+
+    private static boolean isMergeable(Information newer, Information older) {
+        return older.getValidUntil() != null && older.getValidUntil().isEqual(newer.getValidFrom())
+                && older.hasSameAttributes(newer);
+    }
+
+    private void append(List<Information> heads) {
+        final JsonObject record = getRecord().getAsJsonObject();
+        final JsonArray nodes = new JsonArray();
+        final Map<String, Integer> indexes = new HashMap<>();
+        for (JsonElement node : record.getAsJsonArray("nodes")) {
+            indexes.put(node.getAsJsonObject().get("id").getAsString(), nodes.size());
+            nodes.add(node);
+        }
+        final JsonArray versions = new JsonArray();
+        for (JsonElement version : record.getAsJsonArray("versions")) {
+            versions.add(version);
+        }
+
+        for (Information head : heads) {
+            final JsonArray chain = new JsonArray();
+            for (Information information = head; information != null; information = information.getPrevious()) {
+                Integer index = indexes.get(information.getExternalId());
+                if (index == null) {
+                    index = nodes.size();
+                    indexes.put(information.getExternalId(), index);
+                    nodes.add(toJson(information));
+                }
+                chain.add(new JsonPrimitive(index));
+            }
+            final JsonObject version = new JsonObject();
+            version.addProperty("created", head.getCreated().toString());
+            version.add("chain", chain);
+            versions.add(version);
+        }
+
+        final JsonObject updated = new JsonObject();
+        updated.add("nodes", nodes);
+        updated.add("versions", versions);
+        setRecord(updated);
+        setUpdated(new DateTime());
+    }
+
+    private static JsonObject toJson(Information information) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("id", information.getExternalId());
+        json.addProperty("created", information.getCreated().toString());
+        json.addProperty("validFrom", information.getValidFrom().toString());
+        if (information.getValidUntil() != null) {
+            json.addProperty("validUntil", information.getValidUntil().toString());
+        }
+        json.addProperty("name", information.getName());
+        if (information.getIdentification() != null) {
+            json.addProperty("identification", information.getIdentification());
+        }
+        if (information.getBlueprintNumber() != null) {
+            json.addProperty("blueprintNumber", information.getBlueprintNumber());
+        }
+        if (information.getAllocatableCapacity() != null) {
+            json.addProperty("allocatableCapacity", information.getAllocatableCapacity());
+        }
+        if (information.getArea() != null) {
+            json.addProperty("area", information.getArea());
+        }
+        if (information.getMetadata() != null) {
+            json.add("metadata", information.getMetadata());
+        }
+        if (information.getClassification() != null) {
+            json.addProperty("classification", information.getClassification().getExternalId());
+        }
+        if (information.getBlueprint() != null) {
+            json.addProperty("blueprint", information.getBlueprint().getExternalId());
+        }
+        if (information.getUser() != null) {
+            json.addProperty("user", information.getUser().getUsername());
+        }
+        return json;
+    }
+}
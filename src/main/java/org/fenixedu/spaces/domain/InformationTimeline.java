@@ -0,0 +1,202 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.fenixedu.spaces.ui.InformationBean;
+import org.joda.time.Interval;
+
+/**
+ * Immutable snapshot of the validity boundaries of a space's information chain.
+ *
+ * The chain is kept as arrays of validity starts and ends, so finding the information valid at some instant is a binary
+ * search instead of a walk that builds an {@link Interval} per node. The most recent information is checked first, which
+ * makes lookups for the present constant time. Chains whose validities are not disjoint and ordered, which
+ * {@link Space#add(Information)} never builds, are searched from the head like before so the first match still wins.
+ *
+ * The timeline also remembers a {@link Snapshot} of the information valid now, which is reused until the validity
+ * boundary around it is crossed: the end of that information, or the start of the next one when now falls in a gap.
+ *
+ * @see Space#getInformation(org.joda.time.DateTime, org.joda.time.DateTime)
+ */
+final class InformationTimeline {
+
+    private final Information head;
+    private final long[] starts;
+    private final long[] ends;
+    private final Information[] informations;
+    private final boolean sorted;
+    private volatile Snapshot snapshot;
+
+    private InformationTimeline(Information head, long[] starts, long[] ends, Information[] informations, boolean sorted) {
+        this.head = head;
+        this.starts = starts;
+        this.ends = ends;
+        this.informations = informations;
+        this.sorted = sorted;
+    }
+
+    static InformationTimeline of(Information head) {
+        final List<Information> chain = new ArrayList<>();
+        for (Information current = head; current != null; current = current.getPrevious()) {
+            chain.add(current);
+        }
+        final int size = chain.size();
+        final long[] starts = new long[size];
+        final long[] ends = new long[size];
+        final Information[] informations = new Information[size];
+        boolean sorted = true;
+        // the head is the most recent information, so it goes last when the chain is sorted
+        for (int i = 0; i < size; i++) {
+            final Information information = chain.get(size - 1 - i);
+            final Interval validity = information.getValidity();
+            starts[i] = validity.getStartMillis();
+            ends[i] = validity.getEndMillis();
+            informations[i] = information;
+            sorted &= i == 0 || ends[i - 1] <= starts[i];
+        }
+        return new InformationTimeline(head, starts, ends, informations, sorted);
+    }
+
+    /**
+     * Whether this timeline was built from the chain that starts at the given information. Information nodes are never
+     * changed once they are part of a space's chain, so a chain with the same head is the same chain.
+     */
+    boolean isValidFor(Information head) {
+        return this.head == head;
+    }
+
+    /**
+     * The information whose validity contains the given instant, with the same semantics as {@link Interval#contains(long)}.
+     */
+    Optional<Information> find(long instant) {
+        final int last = informations.length - 1;
+        if (last < 0) {
+            return Optional.empty();
+        }
+        if (contains(last, instant)) {
+            return Optional.of(informations[last]);
+        }
+        if (!sorted) {
+            for (int i = last - 1; i >= 0; i--) {
+                if (contains(i, instant)) {
+                    return Optional.of(informations[i]);
+                }
+            }
+            return Optional.empty();
+        }
+        final int candidate = countStartingAtOrBefore(instant) - 1;
+        return candidate >= 0 && contains(candidate, instant) ? Optional.of(informations[candidate]) : Optional.empty();
+    }
+
+    /**
+     * The snapshot of the information valid at the given instant, reusing the last one while the instant stays within its
+     * boundaries.
+     */
+    Snapshot snapshot(long instant) {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null || !snapshot.covers(instant)) {
+            snapshot = snapshotAt(instant);
+            this.snapshot = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * The snapshot of the information valid at the given instant, without remembering it.
+     */
+    Snapshot snapshotAt(long instant) {
+        final Optional<Information> information = find(instant);
+        if (!sorted) {
+            // the first match may change at any instant, so the snapshot is only good for this one
+            return new Snapshot(information, instant, instant + 1);
+        }
+        final int candidate = countStartingAtOrBefore(instant) - 1;
+        if (information.isPresent()) {
+            return new Snapshot(information, starts[candidate], ends[candidate]);
+        }
+        final long from = candidate < 0 ? Long.MIN_VALUE : ends[candidate];
+        final long until = candidate + 1 < starts.length ? starts[candidate + 1] : Long.MAX_VALUE;
+        return new Snapshot(information, from, until);
+    }
+
+    private boolean contains(int index, long instant) {
+        return starts[index] <= instant && instant < ends[index];
+    }
+
+    private int countStartingAtOrBefore(long instant) {
+        int low = 0, high = starts.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (starts[mid] <= instant) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The information valid during [from, until), together with its bean, which is built the first time it is needed.
+     */
+    static final class Snapshot {
+        private final Optional<Information> information;
+        private final long from;
+        private final long until;
+        private volatile InformationBean bean;
+
+        private Snapshot(Optional<Information> information, long from, long until) {
+            this.information = information;
+            this.from = from;
+            this.until = until;
+        }
+
+        private boolean covers(long instant) {
+            return from <= instant && instant < until;
+        }
+
+        long getFrom() {
+            return from;
+        }
+
+        long getUntil() {
+            return until;
+        }
+
+        Optional<Information> getInformation() {
+            return information;
+        }
+
+        /**
+         * A copy of the bean of this snapshot's information, so callers are free to change it.
+         */
+        InformationBean bean() {
+            InformationBean bean = this.bean;
+            if (bean == null) {
+                bean = information.map(info -> Information.builder(info)).orElse(Information.builder()).bean();
+                this.bean = bean;
+            }
+            return new InformationBean(bean);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory index over the information every space attached to Bennu has now, read through immutable snapshots.
+ *
+ * The index remembers, for each space, its information timeline, whether it was attached to Bennu, the period during
+ * which its information is current and the metadata schema of its classification, so it can tell whether a space is
+ * stale without reading any of its information. Spaces mark themselves as changed whenever their information, parent or
+ * attachment changes, and classifications mark their spaces whenever their metadata spec changes.
+ *
+ * Before every search, the marked spaces are checked against their stamps in the transaction of the caller. While they
+ * are all still valid, and no information has expired, the last snapshot is searched without taking any lock. Otherwise
+ * the caller brings the stale entries up to date and publishes a new snapshot. Marks last {@value #RECHECK_MINUTES}
+ * minutes, since the transaction that changed a space may not have committed yet. The first snapshot is built by the
+ * first search, and every space is checked again whenever {@link #recheckAll()} runs, which is how changes made on other
+ * servers are found.
+ *
+ * @param <T> the entry kept for each indexed space
+ * @param <S> the immutable snapshot built from the entries
+ */
+abstract class MaintainedSpaceIndex<T, S> {
+
+    private static final int RECHECK_MINUTES = 10;
+    private static final long RECHECK_MILLIS = TimeUnit.MINUTES.toMillis(RECHECK_MINUTES);
+
+    private static final List<MaintainedSpaceIndex<?, ?>> INDEXES = new CopyOnWriteArrayList<>();
+
+    // guarded by itself, since spaces are marked from any thread
+    private final Map<Space, Long> changed = new HashMap<>();
+
+    private volatile State<T, S> state;
+
+    protected MaintainedSpaceIndex() {
+        INDEXES.add(this);
+    }
+
+    /**
+     * Marks the given space as changed in every index, so it is checked by the searches that follow.
+     */
+    static void changed(Space space) {
+        final long now = System.currentTimeMillis();
+        for (MaintainedSpaceIndex<?, ?> index : INDEXES) {
+            synchronized (index.changed) {
+                index.changed.put(space, now);
+            }
+        }
+    }
+
+    /**
+     * Checks every space of every index that was already built, in the current transaction.
+     */
+    static void recheckAll() {
+        for (MaintainedSpaceIndex<?, ?> index : INDEXES) {
+            if (index.state != null) {
+                index.rebuild(System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * The last snapshot of the index, first brought up to date if some marked space is stale in the current transaction.
+     */
+    protected final S snapshot() {
+        final long now = System.currentTimeMillis();
+        final State<T, S> current = state;
+        if (current != null && now < current.nextExpiry) {
+            boolean valid = true;
+            for (Space space : marked(now)) {
+                if (!current.isValidFor(space, now)) {
+                    valid = false;
+                    break;
+                }
+            }
+            if (valid) {
+                return current.snapshot;
+            }
+        }
+        return update(now);
+    }
+
+    private List<Space> marked(long now) {
+        synchronized (changed) {
+            changed.values().removeIf(time -> now - time >= RECHECK_MILLIS);
+            return new ArrayList<>(changed.keySet());
+        }
+    }
+
+    private synchronized S update(long now) {
+        final State<T, S> current = state;
+        if (current == null) {
+            return rebuild(now);
+        }
+        final Set<Space> spaces = new HashSet<>(marked(now));
+        if (now >= current.nextExpiry) {
+            current.stamps.forEach((space, stamp) -> {
+                if (!stamp.isCurrent(now)) {
+                    spaces.add(space);
+                }
+            });
+        }
+        final Map<Space, Stamp> stamps = new HashMap<>(current.stamps);
+        final Map<Space, T> entries = new HashMap<>(current.entries);
+        boolean stale = false;
+        for (Space space : spaces) {
+            stale |= check(space, now, stamps, entries);
+        }
+        if (!stale && now < current.nextExpiry) {
+            return current.snapshot;
+        }
+        return publish(stamps, entries, stale ? null : current.snapshot);
+    }
+
+    private synchronized S rebuild(long now) {
+        final Map<Space, Stamp> stamps = new HashMap<>();
+        final Map<Space, T> entries = new HashMap<>();
+        Space.getAllSpaces().forEach(space -> check(space, now, stamps, entries));
+        return publish(stamps, entries, null);
+    }
+
+    private S publish(Map<Space, Stamp> stamps, Map<Space, T> entries, S unchanged) {
+        long nextExpiry = Long.MAX_VALUE;
+        for (Stamp stamp : stamps.values()) {
+            nextExpiry = Math.min(nextExpiry, stamp.until);
+        }
+        final S snapshot = unchanged != null ? unchanged : build(Collections.unmodifiableMap(entries));
+        state = new State<>(Collections.unmodifiableMap(stamps), Collections.unmodifiableMap(entries), snapshot, nextExpiry);
+        return snapshot;
+    }
+
+    /**
+     * Brings the stamp and entry of the given space up to date, returning whether they were stale.
+     */
+    private boolean check(Space space, long now, Map<Space, Stamp> stamps, Map<Space, T> entries) {
+        final Stamp stamp = stamps.get(space);
+        if (stamp != null ? stamp.isValidFor(space, now) : space.getBennu() == null) {
+            return false;
+        }
+        stamps.remove(space);
+        entries.remove(space);
+        if (space.getBennu() != null) {
+            final InformationTimeline timeline = space.getTimeline();
+            final InformationTimeline.Snapshot current = timeline.snapshot(now);
+            final Information information = current.getInformation().orElse(null);
+            stamps.put(space, new Stamp(timeline, current.getFrom(), current.getUntil(), information == null ? null
+                    : information.getClassification()));
+            final T entry = entry(space, information);
+            if (entry != null) {
+                entries.put(space, entry);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The entry of a space attached to Bennu with the information it has now, which is null if it has none. Returns null to
+     * leave the space out of the index.
+     */
+    protected abstract T entry(Space space, Information information);
+
+    /**
+     * Builds an immutable snapshot of the index from the entries of every indexed space.
+     */
+    protected abstract S build(Map<Space, T> entries);
+
+    private static final class State<T, S> {
+        private final Map<Space, Stamp> stamps;
+        private final Map<Space, T> entries;
+        private final S snapshot;
+        private final long nextExpiry;
+
+        private State(Map<Space, Stamp> stamps, Map<Space, T> entries, S snapshot, long nextExpiry) {
+            this.stamps = stamps;
+            this.entries = entries;
+            this.snapshot = snapshot;
+            this.nextExpiry = nextExpiry;
+        }
+
+        private boolean isValidFor(Space space, long now) {
+            final Stamp stamp = stamps.get(space);
+            return stamp != null ? stamp.isValidFor(space, now) : space.getBennu() == null;
+        }
+    }
+
+    private static final class Stamp {
+        private final InformationTimeline timeline;
+        private final long from;
+        private final long until;
+        private final SpaceClassification classification;
+        private final MetadataSchema schema;
+
+        private Stamp(InformationTimeline timeline, long from, long until, SpaceClassification classification) {
+            this.timeline = timeline;
+            this.from = from;
+            this.until = until;
+            this.classification = classification;
+            this.schema = classification == null ? null : classification.getMetadataSchema();
+        }
+
+        private boolean isCurrent(long now) {
+            return now >= from && now < until;
+        }
+
+        /**
+         * Whether the given space still has the information and attachment this stamp was taken from, at an instant in
+         * the same period, and the metadata of that information is still read with the same schema.
+         */
+        private boolean isValidFor(Space space, long now) {
+            return isCurrent(now) && space.getTimeline() == timeline && space.getBennu() != null
+                    && (classification == null || classification.getMetadataSchema() == schema);
+        }
+    }
+}
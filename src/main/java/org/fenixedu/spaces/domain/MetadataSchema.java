@@ -0,0 +1,104 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Immutable, compiled form of the metadata spec of a space classification.
+ *
+ * Each field is mapped to its spec and to the decoder of its declared type, so reading a metadata value is a hash lookup
+ * followed by a single conversion. A schema remembers the spec it was compiled from, which allows a classification to check
+ * that its cached schema still matches its spec.
+ *
+ * @see SpaceClassification#getMetadataSchema()
+ */
+final class MetadataSchema {
+
+    private static final Function<JsonElement, Object> BOOLEAN = value -> value.getAsBoolean();
+    private static final Function<JsonElement, Object> INTEGER = value -> value.getAsInt();
+    private static final Function<JsonElement, Object> BIG_DECIMAL = value -> value.getAsBigDecimal();
+    private static final Function<JsonElement, Object> STRING = value -> value.getAsString();
+
+    private final JsonElement spec;
+    private final Map<String, JsonElement> specs;
+    private final Map<String, Function<JsonElement, Object>> decoders;
+
+    private MetadataSchema(JsonElement spec, Map<String, JsonElement> specs, Map<String, Function<JsonElement, Object>> decoders) {
+        this.spec = spec;
+        this.specs = specs;
+        this.decoders = decoders;
+    }
+
+    static MetadataSchema of(JsonElement spec) {
+        final Map<String, JsonElement> specs = new HashMap<>();
+        final Map<String, Function<JsonElement, Object>> decoders = new HashMap<>();
+        for (JsonElement element : spec.getAsJsonArray()) {
+            final JsonObject field = element.getAsJsonObject();
+            final String name = field.get("name").getAsString();
+            // like the linear search this replaces, the first spec of a field wins
+            if (!specs.containsKey(name)) {
+                specs.put(name, element);
+                decoders.put(name, decoder(field.get("type").getAsString()));
+            }
+        }
+        return new MetadataSchema(spec, Collections.unmodifiableMap(specs), Collections.unmodifiableMap(decoders));
+    }
+
+    private static Function<JsonElement, Object> decoder(String type) {
+        if (Boolean.class.getName().equalsIgnoreCase(type)) {
+            return BOOLEAN;
+        }
+        if (Integer.class.getName().equalsIgnoreCase(type)) {
+            return INTEGER;
+        }
+        if (BigDecimal.class.getName().equalsIgnoreCase(type)) {
+            return BIG_DECIMAL;
+        }
+        return STRING;
+    }
+
+    boolean isCompiledFrom(JsonElement spec) {
+        return this.spec == spec;
+    }
+
+    JsonElement getSpec(String field) {
+        return specs.get(field);
+    }
+
+    /**
+     * Decodes the value of the given field from the metadata of an information, or returns null if the field is not in
+     * this schema, the information has no metadata or the field has no value. The metadata is only read for known fields.
+     */
+    Object decode(String field, JsonElement metadata) {
+        final Function<JsonElement, Object> decoder = decoders.get(field);
+        if (decoder == null || metadata == null || metadata.isJsonNull()) {
+            return null;
+        }
+        final JsonElement value = metadata.getAsJsonObject().get(field);
+        return value == null || value.isJsonNull() ? null : decoder.apply(value);
+    }
+}
@@ -19,17 +19,20 @@
 package org.fenixedu.spaces.domain;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.fenixedu.bennu.core.domain.Bennu;
 import org.fenixedu.bennu.core.domain.User;
 import org.fenixedu.bennu.core.groups.Group;
-import org.fenixedu.bennu.core.groups.NobodyGroup;
 import org.fenixedu.spaces.domain.occupation.Occupation;
+import org.fenixedu.spaces.domain.occupation.OccupationIndex;
 import org.fenixedu.spaces.ui.InformationBean;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
@@ -41,6 +44,21 @@ import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 
 public final class Space extends Space_Base implements Comparable<Space> {
+
+    private volatile OccupationIndex occupationIndex;
+
+    private volatile InformationTimeline timeline;
+
+    private volatile SpaceChildren childrenView;
+
+    private volatile SpacePath path;
+
+    private volatile AccessChain occupationsChain;
+
+    private volatile AccessChain managementChain;
+
+    private volatile ChildrenByBlueprint childrenByBlueprint;
+
     public Space() {
         super();
     }
@@ -69,7 +87,7 @@ public final class Space extends Space_Base implements Comparable<Space> {
     }
 
     public InformationBean bean() {
-        return getInformation().map(info -> Information.builder(info)).orElse(Information.builder()).bean();
+        return getSnapshot(System.currentTimeMillis()).bean();
     }
 
     @Atomic(mode = TxMode.WRITE)
@@ -112,7 +130,7 @@ public final class Space extends Space_Base implements Comparable<Space> {
      * @return
      */
     protected Optional<Information> getInformation() {
-        return getInformation(new DateTime());
+        return getSnapshot(System.currentTimeMillis()).getInformation();
     }
 
     /**
@@ -135,21 +153,27 @@ public final class Space extends Space_Base implements Comparable<Space> {
      */
 
     protected Optional<Information> getInformation(final DateTime when, final DateTime creationDate) {
-        Information current = getCurrent();
-        while (current != null) {
-            if (current.contains(when)) {
-                return Optional.of(current);
-            }
-            current = current.getPrevious();
-        }
-        return Optional.empty();
+        return getTimeline().find(when == null ? System.currentTimeMillis() : when.getMillis());
     }
 
-    private Boolean dateEquals(DateTime validFrom, DateTime validUntil) {
-        if (validFrom == null && validUntil == null) {
-            return Boolean.TRUE;
+    /**
+     * get the validity boundaries of this space's information, rebuilding them if the information changed since they were
+     * computed.
+     *
+     * @return
+     */
+    InformationTimeline getTimeline() {
+        final Information current = getCurrent();
+        InformationTimeline timeline = this.timeline;
+        if (timeline == null || !timeline.isValidFor(current)) {
+            timeline = InformationTimeline.of(current);
+            this.timeline = timeline;
         }
-        return validFrom == null ? Boolean.FALSE : validFrom.equals(validUntil);
+        return timeline;
+    }
+
+    InformationTimeline.Snapshot getSnapshot(long instant) {
+        return getTimeline().snapshot(instant);
     }
 
     protected void add(Information information) {
@@ -157,107 +181,85 @@ public final class Space extends Space_Base implements Comparable<Space> {
             return;
         }
 
-        if (getCurrent() == null) {
+        final Information head = getCurrent();
+        if (head == null) {
             setCurrent(information);
+            timeline = InformationTimeline.of(information);
+            updateIndexes();
             return;
         }
 
-        final DateTime newStart = information.getValidFrom();
-        final DateTime newEnd = information.getValidUntil();
-
-        final Interval newValidity = information.getValidity();
-
-        Information newCurrent = null;
-        Information last = null;
-        Information newHead = null;
+        final Information newHead = ValidityChain.insert(head, information, Information.CHAIN_NODES);
+        addHistory(head);
+        setCurrent(newHead);
+        timeline = InformationTimeline.of(newHead);
+        updateIndexes();
+    }
 
-        Information current = getCurrent();
-        Information head = current;
-        Interval currentValidity = current.getValidity();
+    @Override
+    public void setParent(Space parent) {
+        super.setParent(parent);
+        updateIndexes();
+    }
 
-        boolean foundEnd = false;
-        boolean foundStart = false;
+    @Override
+    public void setBennu(Bennu bennu) {
+        super.setBennu(bennu);
+        updateIndexes();
+    }
 
-        // insert at head
-        if (newValidity.isAfter(currentValidity)) {
-            newHead = information;
-            newHead.setPrevious(head);
+    /**
+     * Puts this space in the top level spaces index if it has no parent, and in the index of every classification its
+     * information has at some point in time. Spaces no longer attached to Bennu are in no index. Also tells the in-memory
+     * indexes to check this space on their next refreshes.
+     */
+    public void updateIndexes() {
+        MaintainedSpaceIndex.changed(this);
+        setTopLevelBennu(getIndexedTopLevelBennu());
+
+        final Set<SpaceClassification> classifications = getIndexedClassifications();
+        for (SpaceClassification classification : new ArrayList<>(getIndexedClassificationSet())) {
+            if (!classifications.remove(classification)) {
+                removeIndexedClassification(classification);
+            }
         }
+        classifications.forEach(this::addIndexedClassification);
+    }
 
-        if (newHead == null) {
-
-            //last is the previous element of the new list
-            //newCurrent is the current element of the new list
-
-            while (current != null) {
-                if (!foundEnd && !foundStart && current.contains(newValidity)) { //if start and end is in the current element
-                    if (current.getValidity().equals(newValidity)) { // if it is the same period just replace current
-                        newCurrent = information;
-                    } else {
-                        Information right = dateEquals(current.getValidUntil(), newEnd) ? information : current.keepRight(newEnd);
-                        if (last != null) {
-                            last.setPrevious(right);
-                        } else {
-                            newHead = right; // no previous in new list, make right head
-                        }
-                        if (right != information) {
-                            right.setPrevious(information);
-                        }
-                        last = information;
-                        newCurrent = dateEquals(current.getValidFrom(), newStart) ? last : current.keepLeft(newStart);
-                    }
-                    foundEnd = true;
-                    foundStart = true;
-                } else {
-                    if (!foundEnd) {
-                        final boolean isAfter = current.isAfter(newEnd); //if newEnd is after current end date, then it is a gap
-                        if (current.contains(newEnd) || isAfter) {
-                            if (!isAfter) {
-                                Information right = current.keepRight(newEnd);
-                                if (last != null) {
-                                    last.setPrevious(right);
-                                } else {
-                                    newHead = right; // no previous in new list, make right head
-                                }
-                                last = right;
-                            }
-                            newCurrent = information; // no need to cut current because it will be replaced by information
-                            foundEnd = true;
-                        }
-                    }
-                    final boolean isAfter = current.isAfter(newStart); //if newEnd is after current end date, then it is a gap
-                    if (foundEnd && (current.contains(newStart) || isAfter)) { // looking for the start
-                        newCurrent = current.keepLeft(newStart);
-                        foundStart = true;
-                    } else {
-                        if (!foundEnd || foundStart) { // if not in the process of searching for information just keep copying current
-                            newCurrent = current.copy();
-                        }
-                    }
-                }
-
-                //bookkeeping code
-                if (last != null && !last.equals(newCurrent)) {
-                    last.setPrevious(newCurrent);
-                }
-
-                last = newCurrent;
+    private Bennu getIndexedTopLevelBennu() {
+        final Bennu bennu = getBennu();
+        return bennu != null && getParent() == null ? bennu : null;
+    }
 
-                if (newHead == null) {
-                    newHead = newCurrent;
+    private Set<SpaceClassification> getIndexedClassifications() {
+        final Set<SpaceClassification> classifications = new HashSet<>();
+        if (getBennu() != null) {
+            for (Information information = getCurrent(); information != null; information = information.getPrevious()) {
+                if (information.getClassification() != null) {
+                    classifications.add(information.getClassification());
                 }
-
-                current = current.getPrevious();
-            }
-
-            //insert at end
-            if (!foundEnd) {
-                last.setPrevious(information);
             }
         }
+        return classifications;
+    }
 
-        addHistory(head);
-        setCurrent(newHead);
+    private boolean isIndexed() {
+        return getIndexedTopLevelBennu() == getTopLevelBennu()
+                && getIndexedClassifications().equals(getIndexedClassificationSet());
+    }
+
+    /**
+     * update the indexes of this space unless it already is where {@link #updateIndexes()} would put it, such as when it was
+     * created before spaces were indexed
+     *
+     * @return whether the indexes were updated
+     */
+    public boolean updateIndexesIfStale() {
+        if (isIndexed()) {
+            return false;
+        }
+        updateIndexes();
+        return true;
     }
 
     @Atomic(mode = TxMode.WRITE)
@@ -267,8 +269,25 @@ public final class Space extends Space_Base implements Comparable<Space> {
     }
 
     public Optional<Space> readChildByBlueprintNumber(final String blueprintNumber, final DateTime when) {
-        return Strings.isNullOrEmpty(blueprintNumber) ? Optional.empty() : getChildren().stream()
-                .filter(space -> blueprintNumber.equals(space.getBlueprintNumber().orElse(null))).findFirst();
+        return Strings.isNullOrEmpty(blueprintNumber) ? Optional.empty() : Optional.ofNullable(getChildrenByBlueprintNumber(
+                when).get(blueprintNumber));
+    }
+
+    /**
+     * get the children of this space that are active at the given date, by their blueprint number at that date
+     *
+     * @param when
+     * @return an unmodifiable map, reused while the children and their information stay the same around that date
+     */
+    public Map<String, Space> getChildrenByBlueprintNumber(final DateTime when) {
+        final long instant = when == null ? System.currentTimeMillis() : when.getMillis();
+        final Set<Space> children = getChildrenSet();
+        ChildrenByBlueprint index = childrenByBlueprint;
+        if (index == null || !index.isValidFor(children, instant)) {
+            index = ChildrenByBlueprint.of(children, instant);
+            childrenByBlueprint = index;
+        }
+        return index.getChildren();
     }
 
     public Optional<String> getBlueprintNumber() {
@@ -287,12 +306,21 @@ public final class Space extends Space_Base implements Comparable<Space> {
         return getInformation(when).map(info -> info.getBlueprint());
     }
 
+    /**
+     * get the active spaces from the top level space down to this one
+     *
+     * @return an unmodifiable list, reused while the ancestors of this space and their information stay the same
+     */
     public List<Space> getPath() {
-        List<Space> path = new ArrayList<>();
-        Space parent = this;
-        while (parent != null && parent.isActive()) {
-            path.add(0, parent);
-            parent = parent.getParent();
+        return getSpacePath().getSpaces();
+    }
+
+    private SpacePath getSpacePath() {
+        final long now = System.currentTimeMillis();
+        SpacePath path = this.path;
+        if (path == null || !path.isValidFor(this, now)) {
+            path = SpacePath.of(this, now);
+            this.path = path;
         }
         return path;
     }
@@ -325,12 +353,39 @@ public final class Space extends Space_Base implements Comparable<Space> {
         return getInformation().map(info -> info.getAllocatableCapacity()).orElse(0);
     }
 
+    /**
+     * get the active children of this space
+     *
+     * @return an unmodifiable set, reused while the children and their information stay the same
+     */
     public Set<Space> getChildren() {
-        return getChildrenSet().stream().filter(space -> space.isActive()).collect(Collectors.toSet());
+        return getChildrenView(System.currentTimeMillis()).getActive();
+    }
+
+    /**
+     * get the number of active spaces under this one, following active children only
+     *
+     * @return
+     */
+    public int getDescendantCount() {
+        final long now = System.currentTimeMillis();
+        return getChildrenView(now).countDescendants(now);
+    }
+
+    SpaceChildren getChildrenView(long instant) {
+        final Set<Space> children = getChildrenSet();
+        SpaceChildren view = childrenView;
+        if (view == null || !view.isValidFor(children, instant)) {
+            view = SpaceChildren.of(children, instant);
+            childrenView = view;
+        }
+        return view;
     }
 
     public static Set<Space> getSpaces(final SpaceClassification classification) {
-        return getSpaces().filter(space -> classification.equals(space.getClassification())).collect(Collectors.toSet());
+        return classification.getIndexedSpaceSet().stream()
+                .filter(space -> space.isActive() && classification.equals(space.getClassification()))
+                .collect(Collectors.toSet());
     }
 
     @Deprecated
@@ -345,7 +400,8 @@ public final class Space extends Space_Base implements Comparable<Space> {
     }
 
     public static Set<Space> getTopLevelSpaces() {
-        return getSpaces().filter(s -> s.getParent() == null).sorted().collect(Collectors.toSet());
+        return Bennu.getInstance().getTopLevelSpaceSet().stream().filter(s -> s.isActive() && s.getParent() == null)
+                .collect(Collectors.toSet());
     }
 
     public Group getManagementGroup() {
@@ -353,15 +409,7 @@ public final class Space extends Space_Base implements Comparable<Space> {
     }
 
     public Group getManagementGroupWithChainOfResponsability() {
-        Group accessGroup = getManagementGroup();
-        if (accessGroup == null) {
-            accessGroup = NobodyGroup.get();
-        }
-        final Space surroundingSpace = getParent();
-        if (surroundingSpace != null) {
-            return accessGroup.or(surroundingSpace.getManagementGroupWithChainOfResponsability());
-        }
-        return accessGroup;
+        return getManagementChain().getGroup();
     }
 
     public Group getOccupationsGroup() {
@@ -369,57 +417,141 @@ public final class Space extends Space_Base implements Comparable<Space> {
     }
 
     public Group getOccupationsGroupWithChainOfResponsability() {
-        Group accessGroup = getOccupationsGroup();
-        if (accessGroup == null) {
-            accessGroup = NobodyGroup.get();
+        return getOccupationsChain().getGroup();
+    }
+
+    private AccessChain getOccupationsChain() {
+        AccessChain chain = occupationsChain;
+        if (chain == null || !chain.isValidFor(this, Space::getOccupationsAccessGroup)) {
+            chain = AccessChain.of(this, Space::getOccupationsAccessGroup);
+            occupationsChain = chain;
         }
-        final Space surroundingSpace = getParent();
-        if (surroundingSpace != null) {
-            return accessGroup.or(surroundingSpace.getOccupationsGroupWithChainOfResponsability());
+        return chain;
+    }
+
+    private AccessChain getManagementChain() {
+        AccessChain chain = managementChain;
+        if (chain == null || !chain.isValidFor(this, Space::getManagementAccessGroup)) {
+            chain = AccessChain.of(this, Space::getManagementAccessGroup);
+            managementChain = chain;
         }
-        return accessGroup;
+        return chain;
     }
 
     public void setManagementAccessGroup(Group managementAccessGroup) {
         super.setManagementAccessGroup(managementAccessGroup == null ? null : managementAccessGroup.toPersistentGroup());
+        managementChain = null;
     }
 
     public void setOccupationsAccessGroup(Group occupationsAccessGroup) {
         super.setOccupationsAccessGroup(occupationsAccessGroup == null ? null : occupationsAccessGroup.toPersistentGroup());
+        occupationsChain = null;
     }
 
     public boolean isFree(Interval... intervals) {
-        for (Occupation occupation : getOccupationSet()) {
-            if (occupation.overlaps(intervals)) {
-                return false;
-            }
-        }
-        return true;
+        return !getOccupationIndex().overlaps(intervals);
     }
 
     public boolean isFree(List<Interval> intervals) {
-        for (Occupation occupation : getOccupationSet()) {
-            if (occupation.overlaps(intervals)) {
-                return false;
-            }
+        return !getOccupationIndex().overlaps(intervals);
+    }
+
+    /**
+     * get the index over the intervals of this space's occupations, rebuilding it if the occupations changed since it was
+     * computed.
+     *
+     * @return
+     */
+    public OccupationIndex getOccupationIndex() {
+        final Set<Occupation> occupations = getOccupationSet();
+        OccupationIndex index = occupationIndex;
+        if (index == null || !index.isValidFor(occupations)) {
+            index = OccupationIndex.of(occupations);
+            occupationIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Updates the occupation index after the given occupation was added to this space or had its config changed.
+     */
+    public void reindexOccupation(Occupation occupation) {
+        final OccupationIndex index = occupationIndex;
+        if (index != null) {
+            occupationIndex = index.with(occupation);
+        }
+    }
+
+    /**
+     * Updates the occupation index after the given occupation was removed from this space.
+     */
+    public void unindexOccupation(Occupation occupation) {
+        final OccupationIndex index = occupationIndex;
+        if (index != null) {
+            occupationIndex = index.without(occupation);
         }
-        return true;
     }
 
     public String getPresentationName() {
-        final List<Space> path = Lists.reverse(getPath());
-        String others = path.subList(1, path.size()).stream().map(Space::getName).collect(Collectors.joining(", "));
-        return String.format(Strings.isNullOrEmpty(others) ? "%s" : "%s (%s)", path.get(0).getName(), others);
+        return getSpacePath().getPresentationName();
+    }
+
+    /**
+     * get the key spaces are sorted by when sorted by presentation name
+     *
+     * @return the presentation name in lower case
+     */
+    public String getPresentationSortKey() {
+        return getSpacePath().getSortKey();
     }
 
     public boolean isOccupationMember(final User user) {
-        final Group group = getOccupationsGroupWithChainOfResponsability();
-        return group != null && group.isMember(user);
+        return getOccupationsChain().isMember(user);
     }
 
     public boolean isSpaceManagementMember(final User user) {
-        final Group group = getManagementGroupWithChainOfResponsability();
-        return group != null && group.isMember(user);
+        return getManagementChain().isMember(user);
+    }
+
+    /**
+     * get the active spaces with some word in their name, description, identification or blueprint number containing each
+     * of the words of the given text
+     *
+     * @param text
+     * @return the matching spaces, best matches first
+     */
+    public static List<Space> findSpaces(String text) {
+        return SpaceSearchIndex.getInstance().search(text);
+    }
+
+    /**
+     * get at most limit of the active spaces accepted by the given filter with some word in their name, description,
+     * identification or blueprint number starting with each of the words of the given text, for type-ahead
+     *
+     * @param text
+     * @param limit
+     * @param filter
+     * @return the completions, in the order of their matching words
+     */
+    public static List<Space> completeSpaces(String text, int limit, Predicate<Space> filter) {
+        return SpaceSearchIndex.getInstance().complete(text, limit, filter);
+    }
+
+    /**
+     * get the active spaces whose current information satisfies every predicate of the given query
+     *
+     * @param query
+     * @return
+     */
+    public static Set<Space> query(SpaceQuery query) {
+        return SpaceAttributeIndex.getInstance().query(query);
+    }
+
+    /**
+     * check every space of the in-memory search and attribute indexes again, finding the changes made on other servers
+     */
+    public static void recheckIndexes() {
+        MaintainedSpaceIndex.recheckAll();
     }
 
     public static Stream<Space> getSpaces() {
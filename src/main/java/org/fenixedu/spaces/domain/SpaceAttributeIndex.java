@@ -0,0 +1,203 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.gson.JsonElement;
+
+/**
+ * Column oriented index over the capacity, area, classification and metadata of the active spaces.
+ *
+ * Each indexed space gets a row number, and each attribute value maps to the set of rows that have it: capacities and
+ * areas in sorted maps, so a range is the union of the sets of a sub map, and classifications and metadata values in hash
+ * maps. A query ands those sets together and only looks at the spaces of the rows left, to check whether they are in its
+ * scope.
+ *
+ * Queries read the last snapshot of the index, brought up to date first as described in
+ * {@link MaintainedSpaceIndex}.
+ *
+ * @see Space#query(SpaceQuery)
+ */
+final class SpaceAttributeIndex extends MaintainedSpaceIndex<SpaceAttributeIndex.Row, SpaceAttributeIndex.Snapshot> {
+
+    private static volatile SpaceAttributeIndex instance;
+
+    private SpaceAttributeIndex() {
+    }
+
+    static SpaceAttributeIndex getInstance() {
+        SpaceAttributeIndex index = instance;
+        if (index == null) {
+            synchronized (SpaceAttributeIndex.class) {
+                index = instance;
+                if (index == null) {
+                    index = new SpaceAttributeIndex();
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    Set<Space> query(SpaceQuery query) {
+        final Snapshot snapshot = snapshot();
+        final BitSet matches = new BitSet();
+        matches.set(0, snapshot.spaces.length);
+        if (query.getClassification() != null) {
+            final BitSet classified = new BitSet();
+            final Deque<SpaceClassification> pending = new ArrayDeque<>();
+            pending.push(query.getClassification());
+            while (!pending.isEmpty()) {
+                final SpaceClassification classification = pending.pop();
+                classified.or(snapshot.byClassification.getOrDefault(classification, new BitSet()));
+                classification.getChildrenSet().forEach(pending::push);
+            }
+            matches.and(classified);
+        }
+        if (query.getMinCapacity() != null || query.getMaxCapacity() != null) {
+            matches.and(union(range(snapshot.byCapacity, query.getMinCapacity(), query.getMaxCapacity())));
+        }
+        if (query.getMinArea() != null || query.getMaxArea() != null) {
+            matches.and(union(range(snapshot.byArea, query.getMinArea(), query.getMaxArea())));
+        }
+        for (Map.Entry<String, Object> predicate : query.getMetadata().entrySet()) {
+            final Map<Object, BitSet> values = snapshot.byMetadata.getOrDefault(predicate.getKey(), Collections.emptyMap());
+            matches.and(values.getOrDefault(key(predicate.getValue()), new BitSet()));
+        }
+        final Set<Space> result = new HashSet<>();
+        for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+            final Space space = snapshot.spaces[row];
+            if (query.getWithin() == null || isWithin(space, query.getWithin())) {
+                result.add(space);
+            }
+        }
+        return result;
+    }
+
+    private static <T extends Comparable<T>> NavigableMap<T, BitSet> range(NavigableMap<T, BitSet> index, T min, T max) {
+        if (min != null && max != null && min.compareTo(max) > 0) {
+            return Collections.emptyNavigableMap();
+        }
+        final NavigableMap<T, BitSet> fromMin = min == null ? index : index.tailMap(min, true);
+        return max == null ? fromMin : fromMin.headMap(max, true);
+    }
+
+    private static BitSet union(Map<?, BitSet> sets) {
+        final BitSet union = new BitSet();
+        sets.values().forEach(union::or);
+        return union;
+    }
+
+    private static boolean isWithin(Space space, Space scope) {
+        for (Space current = space; current != null; current = current.getParent()) {
+            if (current == scope) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Numbers with the same value but a different scale are the same metadata value.
+     */
+    private static Object key(Object value) {
+        if (value instanceof BigDecimal) {
+            final BigDecimal number = (BigDecimal) value;
+            return number.signum() == 0 ? BigDecimal.ZERO : number.stripTrailingZeros();
+        }
+        return value;
+    }
+
+    @Override
+    protected Row entry(Space space, Information information) {
+        return information == null ? null : Row.of(information);
+    }
+
+    @Override
+    protected Snapshot build(Map<Space, Row> rows) {
+        return new Snapshot(rows);
+    }
+
+    static final class Row {
+        private final Integer capacity;
+        private final BigDecimal area;
+        private final SpaceClassification classification;
+        private final Map<String, Object> metadata;
+
+        private Row(Integer capacity, BigDecimal area, SpaceClassification classification, Map<String, Object> metadata) {
+            this.capacity = capacity;
+            this.area = area;
+            this.classification = classification;
+            this.metadata = metadata;
+        }
+
+        private static Row of(Information information) {
+            final Map<String, Object> metadata = new HashMap<>();
+            final JsonElement json = information.getMetadata();
+            if (information.getClassification() != null && json != null && json.isJsonObject()) {
+                for (Map.Entry<String, JsonElement> field : json.getAsJsonObject().entrySet()) {
+                    information.getMetadata(field.getKey()).ifPresent(value -> metadata.put(field.getKey(), key(value)));
+                }
+            }
+            final BigDecimal area = information.getArea();
+            return new Row(information.getAllocatableCapacity(), area == null ? null : (BigDecimal) key(area),
+                    information.getClassification(), metadata);
+        }
+    }
+
+    static final class Snapshot {
+        private final Space[] spaces;
+        private final NavigableMap<Integer, BitSet> byCapacity = new TreeMap<>();
+        private final NavigableMap<BigDecimal, BitSet> byArea = new TreeMap<>();
+        private final Map<SpaceClassification, BitSet> byClassification = new HashMap<>();
+        private final Map<String, Map<Object, BitSet>> byMetadata = new HashMap<>();
+
+        private Snapshot(Map<Space, Row> rows) {
+            this.spaces = new Space[rows.size()];
+            int row = 0;
+            for (Map.Entry<Space, Row> entry : rows.entrySet()) {
+                final int current = row++;
+                final Row values = entry.getValue();
+                spaces[current] = entry.getKey();
+                if (values.capacity != null) {
+                    byCapacity.computeIfAbsent(values.capacity, key -> new BitSet()).set(current);
+                }
+                if (values.area != null) {
+                    byArea.computeIfAbsent(values.area, key -> new BitSet()).set(current);
+                }
+                if (values.classification != null) {
+                    byClassification.computeIfAbsent(values.classification, key -> new BitSet()).set(current);
+                }
+                values.metadata.forEach((field, value) -> byMetadata.computeIfAbsent(field, key -> new HashMap<>())
+                        .computeIfAbsent(value, key -> new BitSet()).set(current));
+            }
+        }
+    }
+}
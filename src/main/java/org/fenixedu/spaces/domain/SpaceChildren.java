@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable view of the children of a space, and of which of them are active.
+ *
+ * Along with the children, the view remembers the information snapshot of each child and whether it was attached to
+ * Bennu. Creating, deleting or moving a space changes the children set of its parent, and changing a child's information
+ * or crossing one of its validity boundaries gives it a different snapshot, so the view can check that it still holds
+ * without evaluating {@link Space#isActive()} for every child.
+ *
+ * @see Space#getChildren()
+ */
+final class SpaceChildren {
+
+    private final Space[] children;
+    private final InformationTimeline.Snapshot[] snapshots;
+    private final boolean[] attached;
+    private final Set<Space> active;
+
+    private SpaceChildren(Space[] children, InformationTimeline.Snapshot[] snapshots, boolean[] attached, Set<Space> active) {
+        this.children = children;
+        this.snapshots = snapshots;
+        this.attached = attached;
+        this.active = active;
+    }
+
+    static SpaceChildren of(Set<Space> childrenSet, long instant) {
+        final Space[] children = childrenSet.toArray(new Space[childrenSet.size()]);
+        final InformationTimeline.Snapshot[] snapshots = new InformationTimeline.Snapshot[children.length];
+        final boolean[] attached = new boolean[children.length];
+        final Set<Space> active = new HashSet<>();
+        for (int i = 0; i < children.length; i++) {
+            snapshots[i] = children[i].getSnapshot(instant);
+            attached[i] = children[i].getBennu() != null;
+            if (attached[i] && snapshots[i].getInformation().isPresent()) {
+                active.add(children[i]);
+            }
+        }
+        return new SpaceChildren(children, snapshots, attached, Collections.unmodifiableSet(active));
+    }
+
+    /**
+     * Whether this view was built from exactly the given children, each with the state it has at the given instant.
+     */
+    boolean isValidFor(Set<Space> childrenSet, long instant) {
+        if (childrenSet.size() != children.length) {
+            return false;
+        }
+        for (int i = 0; i < children.length; i++) {
+            final Space child = children[i];
+            if (!childrenSet.contains(child) || child.getSnapshot(instant) != snapshots[i]
+                    || (child.getBennu() != null) != attached[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Set<Space> getActive() {
+        return active;
+    }
+
+    /**
+     * Number of active spaces under the active children of this view, counted through their own views.
+     */
+    int countDescendants(long instant) {
+        int count = active.size();
+        for (Space child : active) {
+            count += child.getChildrenView(instant).countDescendants(instant);
+        }
+        return count;
+    }
+}
@@ -70,6 +70,8 @@ public class SpaceClassification extends SpaceClassification_Base {
         }
     };
 
+    private volatile MetadataSchema metadataSchema;
+
     public SpaceClassification(String code, LocalizedString name, SpaceClassification parent, JsonElement metadataSpec) {
         super();
         setCode(code);
@@ -179,13 +181,20 @@ public class SpaceClassification extends SpaceClassification_Base {
     }
 
     public Optional<JsonElement> getMetadataSpecJson(String field) {
-        for (JsonElement je : getMetadataSpec().getAsJsonArray()) {
-            JsonObject job = je.getAsJsonObject();
-            if (job.get("name").getAsString().equals(field)) {
-                return Optional.of(je);
-            }
+        return Optional.ofNullable(getMetadataSchema().getSpec(field));
+    }
+
+    /**
+     * The metadata spec compiled into a schema, compiled again whenever the spec is replaced.
+     */
+    MetadataSchema getMetadataSchema() {
+        final JsonElement spec = getMetadataSpec();
+        MetadataSchema schema = metadataSchema;
+        if (schema == null || !schema.isCompiledFrom(spec)) {
+            schema = MetadataSchema.of(spec);
+            metadataSchema = schema;
         }
-        return Optional.empty();
+        return schema;
     }
 
     @Deprecated
@@ -214,6 +223,8 @@ public class SpaceClassification extends SpaceClassification_Base {
         }
         JsonElement toUpdate = new JsonArray();
         super.setMetadataSpec(metadataSpec);
+        metadataSchema = null;
+        getIndexedSpaceSet().forEach(MaintainedSpaceIndex::changed);
         toUpdate = computeUpdate(metadataSpec);
         for (SpaceClassification classification : getChildrenSet()) {
             classification.updateAndPropagate(toUpdate);
@@ -266,6 +277,7 @@ public class SpaceClassification extends SpaceClassification_Base {
             newSpec.add(spec);
         }
         super.setMetadataSpec(newSpec);
+        getIndexedSpaceSet().forEach(MaintainedSpaceIndex::changed);
     }
 
     public void setMetadataSpecs(Collection<MetadataSpec> specs) {
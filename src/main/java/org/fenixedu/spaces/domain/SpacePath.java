@@ -0,0 +1,131 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+
+/**
+ * Immutable ancestor path of a space, with the names derived from it.
+ *
+ * The path is found by walking up the parents while they are active. Each space the walk visited is remembered along with
+ * its information snapshot and whether it was attached to Bennu, so the path can check it still holds by walking again
+ * and comparing identities. Renaming an ancestor changes its snapshot and moving one changes the walk, so either rebuilds
+ * the path, its presentation name and its sort key.
+ *
+ * @see Space#getPath()
+ */
+final class SpacePath {
+
+    private final Space[] visited;
+    private final InformationTimeline.Snapshot[] snapshots;
+    private final boolean[] attached;
+    private final List<Space> path;
+    private volatile String presentationName;
+    private volatile String sortKey;
+
+    private SpacePath(Space[] visited, InformationTimeline.Snapshot[] snapshots, boolean[] attached, List<Space> path) {
+        this.visited = visited;
+        this.snapshots = snapshots;
+        this.attached = attached;
+        this.path = path;
+    }
+
+    static SpacePath of(Space space, long instant) {
+        final List<Space> visited = new ArrayList<>();
+        final List<InformationTimeline.Snapshot> snapshots = new ArrayList<>();
+        final List<Boolean> attached = new ArrayList<>();
+        final List<Space> path = new ArrayList<>();
+        for (Space current = space; current != null; current = current.getParent()) {
+            final InformationTimeline.Snapshot snapshot = current.getSnapshot(instant);
+            visited.add(current);
+            snapshots.add(snapshot);
+            attached.add(current.getBennu() != null);
+            if (!isActive(current, snapshot)) {
+                break;
+            }
+            path.add(current);
+        }
+        final boolean[] flags = new boolean[attached.size()];
+        for (int i = 0; i < flags.length; i++) {
+            flags[i] = attached.get(i);
+        }
+        return new SpacePath(visited.toArray(new Space[visited.size()]),
+                snapshots.toArray(new InformationTimeline.Snapshot[snapshots.size()]), flags,
+                Collections.unmodifiableList(Lists.reverse(path)));
+    }
+
+    private static boolean isActive(Space space, InformationTimeline.Snapshot snapshot) {
+        return snapshot.getInformation().isPresent() && space.getBennu() != null;
+    }
+
+    /**
+     * Whether walking up from the given space at the given instant visits the same spaces, in the same state.
+     */
+    boolean isValidFor(Space space, long instant) {
+        int i = 0;
+        for (Space current = space; current != null; current = current.getParent()) {
+            if (i == visited.length || current != visited[i] || current.getSnapshot(instant) != snapshots[i]
+                    || (current.getBennu() != null) != attached[i]) {
+                return false;
+            }
+            if (!isActive(current, snapshots[i++])) {
+                break;
+            }
+        }
+        return i == visited.length;
+    }
+
+    /**
+     * the active spaces from the top level space down to this one
+     */
+    List<Space> getSpaces() {
+        return path;
+    }
+
+    String getPresentationName() {
+        String presentationName = this.presentationName;
+        if (presentationName == null) {
+            final List<Space> reversed = Lists.reverse(path);
+            final String others =
+                    reversed.subList(1, reversed.size()).stream().map(Space::getName).collect(Collectors.joining(", "));
+            presentationName =
+                    String.format(Strings.isNullOrEmpty(others) ? "%s" : "%s (%s)", reversed.get(0).getName(), others);
+            this.presentationName = presentationName;
+        }
+        return presentationName;
+    }
+
+    /**
+     * The presentation name in lower case, which is how spaces are sorted by presentation name.
+     */
+    String getSortKey() {
+        String sortKey = this.sortKey;
+        if (sortKey == null) {
+            sortKey = getPresentationName().toLowerCase();
+            this.sortKey = sortKey;
+        }
+        return sortKey;
+    }
+}
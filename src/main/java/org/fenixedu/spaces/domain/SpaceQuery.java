@@ -0,0 +1,210 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Predicates over the information spaces have now, all of which a space must satisfy to match the query.
+ *
+ * Bounds are inclusive and unset ones do not restrict anything. A classification matches spaces of that classification
+ * or of any classification below it, and a scope matches that space and every space below it. Metadata values are
+ * compared with the values decoded from the metadata spec of each space's classification, so they must be of the type
+ * the spec declares for the field.
+ *
+ * @see Space#query(SpaceQuery)
+ */
+public final class SpaceQuery {
+
+    private final Space within;
+    private final SpaceClassification classification;
+    private final Integer minCapacity;
+    private final Integer maxCapacity;
+    private final BigDecimal minArea;
+    private final BigDecimal maxArea;
+    private final Map<String, Object> metadata;
+
+    private SpaceQuery(Builder builder) {
+        this.within = builder.within;
+        this.classification = builder.classification;
+        this.minCapacity = builder.minCapacity;
+        this.maxCapacity = builder.maxCapacity;
+        this.minArea = builder.minArea;
+        this.maxArea = builder.maxArea;
+        this.metadata = Collections.unmodifiableMap(new LinkedHashMap<>(builder.metadata));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Space getWithin() {
+        return within;
+    }
+
+    public SpaceClassification getClassification() {
+        return classification;
+    }
+
+    public Integer getMinCapacity() {
+        return minCapacity;
+    }
+
+    public Integer getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    public BigDecimal getMinArea() {
+        return minArea;
+    }
+
+    public BigDecimal getMaxArea() {
+        return maxArea;
+    }
+
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Whether the given space is active and the information it has now satisfies every predicate of this query, as read in
+     * the current transaction. The index that answers {@link Space#query(SpaceQuery)} may be behind it, so spaces it finds
+     * are to be checked with this before being acted upon.
+     */
+    public boolean matches(Space space) {
+        final Optional<Information> current = space.getInformation();
+        if (!current.isPresent() || space.getBennu() == null) {
+            return false;
+        }
+        final Information information = current.get();
+        return isWithin(space) && isOfClassification(information.getClassification())
+                && isInRange(information.getAllocatableCapacity(), minCapacity, maxCapacity)
+                && isInRange(information.getArea(), minArea, maxArea) && hasMetadata(information);
+    }
+
+    private boolean isWithin(Space space) {
+        if (within == null) {
+            return true;
+        }
+        for (Space current = space; current != null; current = current.getParent()) {
+            if (current == within) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isOfClassification(SpaceClassification spaceClassification) {
+        if (classification == null) {
+            return true;
+        }
+        for (SpaceClassification current = spaceClassification; current != null; current = current.getParent()) {
+            if (current == classification) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T extends Comparable<T>> boolean isInRange(T value, T min, T max) {
+        if (min == null && max == null) {
+            return true;
+        }
+        return value != null && (min == null || value.compareTo(min) >= 0) && (max == null || value.compareTo(max) <= 0);
+    }
+
+    private boolean hasMetadata(Information information) {
+        if (metadata.isEmpty()) {
+            return true;
+        }
+        if (information.getClassification() == null) {
+            return false;
+        }
+        for (Map.Entry<String, Object> predicate : metadata.entrySet()) {
+            final Optional<Object> value = information.getMetadata(predicate.getKey());
+            if (!value.isPresent() || !isSameValue(value.get(), predicate.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Numbers with the same value but a different scale are the same metadata value.
+     */
+    private static boolean isSameValue(Object value, Object expected) {
+        if (value instanceof BigDecimal && expected instanceof BigDecimal) {
+            return ((BigDecimal) value).compareTo((BigDecimal) expected) == 0;
+        }
+        return value.equals(expected);
+    }
+
+    public static class Builder {
+        private Space within;
+        private SpaceClassification classification;
+        private Integer minCapacity;
+        private Integer maxCapacity;
+        private BigDecimal minArea;
+        private BigDecimal maxArea;
+        private final Map<String, Object> metadata = new LinkedHashMap<>();
+
+        public Builder within(Space within) {
+            this.within = within;
+            return this;
+        }
+
+        public Builder classification(SpaceClassification classification) {
+            this.classification = classification;
+            return this;
+        }
+
+        public Builder minCapacity(Integer minCapacity) {
+            this.minCapacity = minCapacity;
+            return this;
+        }
+
+        public Builder maxCapacity(Integer maxCapacity) {
+            this.maxCapacity = maxCapacity;
+            return this;
+        }
+
+        public Builder minArea(BigDecimal minArea) {
+            this.minArea = minArea;
+            return this;
+        }
+
+        public Builder maxArea(BigDecimal maxArea) {
+            this.maxArea = maxArea;
+            return this;
+        }
+
+        public Builder metadata(String field, Object value) {
+            this.metadata.put(field, value);
+            return this;
+        }
+
+        public SpaceQuery build() {
+            return new SpaceQuery(this);
+        }
+    }
+}
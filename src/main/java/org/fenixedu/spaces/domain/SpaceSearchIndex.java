@@ -0,0 +1,272 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Strings;
+
+/**
+ * Inverted index from the words in the name, description, identification and blueprint number of the active spaces to
+ * those spaces.
+ *
+ * Every indexed word is also reachable from each of its substrings of up to {@value #GRAM} characters, so finding the
+ * words that contain a search token intersects a few small sets instead of looking at every word, and finding the spaces
+ * that contain every token of a search intersects the posting lists of those words.
+ *
+ * Searches read the last snapshot of the index, brought up to date first as described in
+ * {@link MaintainedSpaceIndex}.
+ *
+ * For type-ahead, each snapshot also keeps the words as a sorted array of (word, space) pairs. The pairs whose word starts
+ * with a prefix are a contiguous run of that array, found with a binary search and walked in order only until enough
+ * spaces are accepted, or a bounded number of pairs were looked at.
+ *
+ * @see Space#findSpaces(String)
+ * @see Space#completeSpaces(String, int, Predicate)
+ */
+final class SpaceSearchIndex extends MaintainedSpaceIndex<SpaceSearchIndex.Entry, SpaceSearchIndex.Snapshot> {
+
+    private static final int GRAM = 3;
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int SUBSTRING = 1;
+
+    private static final int MAX_EXAMINED = 1000;
+
+    private static volatile SpaceSearchIndex instance;
+
+    private SpaceSearchIndex() {
+    }
+
+    static SpaceSearchIndex getInstance() {
+        SpaceSearchIndex index = instance;
+        if (index == null) {
+            synchronized (SpaceSearchIndex.class) {
+                index = instance;
+                if (index == null) {
+                    index = new SpaceSearchIndex();
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    static List<String> tokenize(String text) {
+        if (Strings.isNullOrEmpty(text)) {
+            return Collections.emptyList();
+        }
+        final Set<String> tokens = new LinkedHashSet<>();
+        for (String token : text.toLowerCase().split("\\s+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * The active spaces with some word containing each of the words of the given text, best matches first.
+     *
+     * A space ranks higher the more of its words are equal to, or start with, the words searched for. Spaces that match
+     * equally well are sorted by full name.
+     */
+    List<Space> search(String text) {
+        final List<String> tokens = tokenize(text);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final Snapshot snapshot = snapshot();
+        Map<Space, Integer> scores = null;
+        for (String token : tokens) {
+            final Map<Space, Integer> matches = new HashMap<>();
+            for (String word : snapshot.wordsContaining(token)) {
+                final int score = word.equals(token) ? EXACT : word.startsWith(token) ? PREFIX : SUBSTRING;
+                for (Space space : snapshot.postings.get(word)) {
+                    matches.merge(space, score, Math::max);
+                }
+            }
+            if (scores == null) {
+                scores = matches;
+            } else {
+                scores.keySet().retainAll(matches.keySet());
+                scores.replaceAll((space, score) -> score + matches.get(space));
+            }
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        final Map<Space, Integer> ranked = scores;
+        return ranked.keySet().stream()
+                .sorted(Comparator.comparing((Space space) -> -ranked.get(space)).thenComparing(
+                        space -> snapshot.entries.get(space).sortKey)).collect(Collectors.toList());
+    }
+
+    /**
+     * At most limit of the active spaces accepted by the given filter with some word starting with each of the words of
+     * the given text, in the order of their words that start with the longest of them.
+     *
+     * At most {@value #MAX_EXAMINED} (word, space) pairs are looked at, so a filter that rejects most spaces makes for
+     * fewer completions rather than a walk of every word starting with a short prefix. The filter is asked once per space.
+     */
+    List<Space> complete(String text, int limit, Predicate<Space> filter) {
+        final List<String> tokens = tokenize(text);
+        if (tokens.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        final Snapshot snapshot = snapshot();
+        final String prefix = tokens.stream().max(Comparator.comparingInt(String::length)).get();
+        final Set<Space> completions = new LinkedHashSet<>();
+        final Set<Space> rejected = new HashSet<>();
+        final int first = snapshot.firstKeyNotBefore(prefix);
+        final int last = Math.min(snapshot.prefixKeys.length, first + MAX_EXAMINED);
+        for (int i = first; i < last && snapshot.prefixKeys[i].startsWith(prefix); i++) {
+            final Space space = snapshot.prefixSpaces[i];
+            if (completions.contains(space) || rejected.contains(space)) {
+                continue;
+            }
+            if (hasWordsStartingWith(snapshot.entries.get(space), tokens) && filter.test(space)) {
+                completions.add(space);
+                if (completions.size() == limit) {
+                    break;
+                }
+            } else {
+                rejected.add(space);
+            }
+        }
+        return new ArrayList<>(completions);
+    }
+
+    private static boolean hasWordsStartingWith(Entry entry, List<String> tokens) {
+        for (String token : tokens) {
+            if (entry.words.stream().noneMatch(word -> word.startsWith(token))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected Entry entry(Space space, Information information) {
+        return Entry.of(information);
+    }
+
+    @Override
+    protected Snapshot build(Map<Space, Entry> entries) {
+        return new Snapshot(entries);
+    }
+
+    static final class Entry {
+        private final Set<String> words;
+        private final String sortKey;
+
+        private Entry(Set<String> words, String sortKey) {
+            this.words = words;
+            this.sortKey = sortKey;
+        }
+
+        private static Entry of(Information information) {
+            final Set<String> words = new HashSet<>();
+            if (information == null) {
+                return new Entry(words, "");
+            }
+            final String name = Strings.nullToEmpty(information.getName());
+            final String description = information.getMetadata("description").map(Object::toString).orElse("");
+            words.addAll(tokenize(name));
+            words.addAll(tokenize(description));
+            words.addAll(tokenize(information.getIdentification()));
+            words.addAll(tokenize(information.getBlueprintNumber()));
+            final String fullName = name.isEmpty() || description.isEmpty() ? name + description : name + " - " + description;
+            return new Entry(words, fullName.toLowerCase());
+        }
+    }
+
+    static final class Snapshot {
+        private final Map<Space, Entry> entries;
+        private final NavigableMap<String, Set<Space>> postings = new TreeMap<>();
+        private final Map<String, Set<String>> grams = new HashMap<>();
+        private final String[] prefixKeys;
+        private final Space[] prefixSpaces;
+
+        private Snapshot(Map<Space, Entry> entries) {
+            this.entries = entries;
+            entries.forEach((space, entry) -> entry.words.forEach(word -> postings.computeIfAbsent(word,
+                    key -> new HashSet<>()).add(space)));
+            final List<String> keys = new ArrayList<>();
+            final List<Space> spaces = new ArrayList<>();
+            for (Map.Entry<String, Set<Space>> posting : postings.entrySet()) {
+                final String word = posting.getKey();
+                for (int length = 1; length <= GRAM; length++) {
+                    for (int i = 0; i + length <= word.length(); i++) {
+                        grams.computeIfAbsent(word.substring(i, i + length), gram -> new HashSet<>()).add(word);
+                    }
+                }
+                posting.getValue().stream().sorted(Comparator.comparing(space -> entries.get(space).sortKey)).forEach(space -> {
+                    keys.add(word);
+                    spaces.add(space);
+                });
+            }
+            this.prefixKeys = keys.toArray(new String[keys.size()]);
+            this.prefixSpaces = spaces.toArray(new Space[spaces.size()]);
+        }
+
+        private int firstKeyNotBefore(String prefix) {
+            int low = 0, high = prefixKeys.length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (prefixKeys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private Set<String> wordsContaining(String token) {
+            if (token.length() <= GRAM) {
+                return grams.getOrDefault(token, Collections.emptySet());
+            }
+            Set<String> smallest = null;
+            for (int i = 0; i + GRAM <= token.length(); i++) {
+                final Set<String> words = grams.get(token.substring(i, i + GRAM));
+                if (words == null) {
+                    return Collections.emptySet();
+                }
+                if (smallest == null || words.size() < smallest.size()) {
+                    smallest = words;
+                }
+            }
+            return smallest.stream().filter(word -> word.contains(token)).collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts a validity period into a chain of nodes, ordered from the most recent to the oldest, treating the chain as a
+ * persistent interval map.
+ *
+ * Chains are never changed once built, since old heads are kept as history. Inserting a node creates new nodes only for
+ * what has to change: the nodes more recent than the inserted period, which must point to a new previous node, and
+ * the parts left over from the nodes it overlaps. The nodes older than the inserted period are shared with the old chain
+ * as they are. Editing the latest information of a space with a long history thus creates a couple of nodes instead of a
+ * copy of the whole history.
+ *
+ * @see Space#add(Information)
+ */
+public final class ValidityChain {
+
+    /**
+     * How to read and create the nodes of a chain. Validities are [start, end), with {@link Long#MAX_VALUE} as the end of an
+     * open one.
+     */
+    public interface Nodes<T> {
+
+        long start(T node);
+
+        long end(T node);
+
+        T previous(T node);
+
+        /**
+         * Sets the previous node of a node created by this insertion.
+         */
+        void link(T node, T previous);
+
+        T copy(T node);
+
+        /**
+         * A copy of the node that ends where the inserted node starts.
+         */
+        T keepLeft(T node, T inserted);
+
+        /**
+         * A copy of the node that starts where the inserted node ends.
+         */
+        T keepRight(T node, T inserted);
+    }
+
+    private ValidityChain() {
+    }
+
+    /**
+     * Inserts a node into the chain that starts at the given head, overriding whatever the chain had during its validity.
+     *
+     * @return the head of the new chain
+     */
+    public static <T> T insert(T head, T inserted, Nodes<T> nodes) {
+        final long start = nodes.start(inserted);
+        final long end = nodes.end(inserted);
+        final List<T> created = new ArrayList<>();
+        boolean placed = false;
+        T current = head;
+        while (current != null) {
+            final long currentStart = nodes.start(current);
+            final long currentEnd = nodes.end(current);
+            if (currentStart >= end) {
+                created.add(nodes.copy(current));
+            } else if (currentEnd <= start) {
+                break;
+            } else {
+                if (currentEnd > end) {
+                    created.add(nodes.keepRight(current, inserted));
+                }
+                if (!placed) {
+                    created.add(inserted);
+                    placed = true;
+                }
+                if (currentStart < start) {
+                    created.add(nodes.keepLeft(current, inserted));
+                }
+            }
+            current = nodes.previous(current);
+        }
+        if (!placed) {
+            created.add(inserted);
+        }
+        for (int i = 0; i < created.size(); i++) {
+            nodes.link(created.get(i), i + 1 < created.size() ? created.get(i + 1) : current);
+        }
+        return created.get(0);
+    }
+}
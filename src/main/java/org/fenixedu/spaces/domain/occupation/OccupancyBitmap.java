@@ -0,0 +1,136 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain.occupation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.joda.time.DateTimeConstants;
+import org.joda.time.Interval;
+
+/**
+ * Sparse bitmap of the 15 minute slots touched by a set of intervals.
+ *
+ * Only the 64-slot words that have some slot set are stored, sorted by word number, so two bitmaps are intersected by
+ * looking up each word of the smaller one in the larger one with a binary search, and and-ing the words they share. A
+ * request of a few words is thus checked against a long occupation history without walking all of it. Every slot an interval touches is set, even partially, so
+ * two bitmaps that do not intersect are guaranteed to describe intervals that do not overlap; the converse does not
+ * hold.
+ */
+public final class OccupancyBitmap {
+
+    public static final long SLOT_MILLIS = 15 * DateTimeConstants.MILLIS_PER_MINUTE;
+
+    private final long[] wordNumbers;
+    private final long[] words;
+
+    private OccupancyBitmap(long[] wordNumbers, long[] words) {
+        this.wordNumbers = wordNumbers;
+        this.words = words;
+    }
+
+    public static OccupancyBitmap of(List<Interval> intervals) {
+        final Builder builder = new Builder();
+        for (Interval interval : intervals) {
+            builder.add(interval.getStartMillis(), interval.getEndMillis());
+        }
+        return builder.build();
+    }
+
+    static OccupancyBitmap of(long[] starts, long[] ends) {
+        final Builder builder = new Builder();
+        for (int i = 0; i < starts.length; i++) {
+            builder.add(starts[i], ends[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Do this and the given bitmap have some slot in common.
+     */
+    public boolean intersects(OccupancyBitmap other) {
+        final OccupancyBitmap small = words.length <= other.words.length ? this : other;
+        final OccupancyBitmap large = small == this ? other : this;
+        int from = 0;
+        for (int i = 0; i < small.wordNumbers.length && from < large.wordNumbers.length; i++) {
+            final int found = Arrays.binarySearch(large.wordNumbers, from, large.wordNumbers.length, small.wordNumbers[i]);
+            if (found >= 0) {
+                if ((small.words[i] & large.words[found]) != 0) {
+                    return true;
+                }
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    private static final class Builder {
+        private long[] wordNumbers = new long[16];
+        private long[] masks = new long[16];
+        private int size = 0;
+
+        /**
+         * Sets every slot touched by [start, end). An empty interval touches the slot of its start, which is where it
+         * can overlap other intervals.
+         */
+        private void add(long start, long end) {
+            final long first = Math.floorDiv(start, SLOT_MILLIS);
+            final long last = Math.floorDiv(Math.max(end, start + 1) - 1, SLOT_MILLIS);
+            for (long wordNumber = Math.floorDiv(first, Long.SIZE); wordNumber <= Math.floorDiv(last, Long.SIZE); wordNumber++) {
+                final long wordStart = wordNumber * Long.SIZE;
+                final int from = (int) Math.max(first - wordStart, 0);
+                final int to = (int) Math.min(last - wordStart, Long.SIZE - 1);
+                final long mask = (-1L >>> (Long.SIZE - 1 - to + from)) << from;
+                if (size == wordNumbers.length) {
+                    wordNumbers = Arrays.copyOf(wordNumbers, size * 2);
+                    masks = Arrays.copyOf(masks, size * 2);
+                }
+                wordNumbers[size] = wordNumber;
+                masks[size] = mask;
+                size++;
+            }
+        }
+
+        /**
+         * Sorts the word numbers added, drops the repeated ones and ors together the masks of each.
+         */
+        private OccupancyBitmap build() {
+            final long[] sorted = Arrays.copyOf(wordNumbers, size);
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (unique == 0 || sorted[i] != sorted[unique - 1]) {
+                    sorted[unique++] = sorted[i];
+                }
+            }
+            final long[] numbers = Arrays.copyOf(sorted, unique);
+            final long[] values = new long[unique];
+            for (int i = 0; i < size; i++) {
+                values[Arrays.binarySearch(numbers, wordNumbers[i])] |= masks[i];
+            }
+            return new OccupancyBitmap(numbers, values);
+        }
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.fenixedu.spaces.domain.occupation;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -55,11 +56,22 @@ public class Occupation extends Occupation_Base {
     @Override
     public void addSpace(Space space) {
         super.addSpace(space);
+        space.reindexOccupation(this);
     }
 
     @Override
     public void removeSpace(Space space) {
         super.removeSpace(space);
+        space.unindexOccupation(this);
+    }
+
+    @Override
+    public void setConfig(OccupationConfig config) {
+        super.setConfig(config);
+        OccupationMonth.index(this);
+        for (Space space : getSpaceSet()) {
+            space.reindexOccupation(this);
+        }
     }
 
     public Set<Space> getSpaces() {
@@ -70,30 +82,24 @@ public class Occupation extends Occupation_Base {
         return getConfig().getIntervals();
     }
 
+    /**
+     * The intervals of this occupation that overlap the given window.
+     */
+    public Iterable<Interval> getIntervals(Interval window) {
+        return getConfig().intervalsWithin(window);
+    }
+
     public Boolean overlaps(List<Interval> intervals) {
-        for (final Interval interval : intervals) {
-            for (final Interval occupationInterval : getIntervals()) {
-                if (occupationInterval.overlaps(interval)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return getConfig().overlaps(intervals);
     }
 
     public boolean overlaps(Interval... intervals) {
-        for (final Interval interval : intervals) {
-            for (final Interval occupationInterval : getIntervals()) {
-                if (occupationInterval.overlaps(interval)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return getConfig().overlaps(Arrays.asList(intervals));
     }
 
     public Boolean isActive() {
-        return !getIntervals().get(getIntervals().size() - 1).getEnd().isBeforeNow();
+        final List<Interval> intervals = getConfig().getSortedIntervals();
+        return !intervals.get(intervals.size() - 1).getEnd().isBeforeNow();
     }
 
     public String getSummary() {
@@ -117,7 +123,11 @@ public class Occupation extends Occupation_Base {
             setRequest(null);
         }
         setBennu(null);
+        for (Space space : getSpaceSet()) {
+            space.unindexOccupation(this);
+        }
         getSpaceSet().clear();
+        getOccupationMonthSet().clear();
         super.deleteDomainObject();
     }
 
@@ -0,0 +1,51 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain.occupation;
+
+import org.fenixedu.spaces.domain.Space;
+import org.joda.time.Interval;
+
+/**
+ * An interval that can not be booked in a space because one of the occupations of the space overlaps it.
+ */
+public final class OccupationConflict {
+
+    private final Space space;
+    private final Interval interval;
+    private final Occupation occupation;
+
+    public OccupationConflict(Space space, Interval interval, Occupation occupation) {
+        this.space = space;
+        this.interval = interval;
+        this.occupation = occupation;
+    }
+
+    public Space getSpace() {
+        return space;
+    }
+
+    public Interval getInterval() {
+        return interval;
+    }
+
+    public Occupation getOccupation() {
+        return occupation;
+    }
+
+}
@@ -0,0 +1,276 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain.occupation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.fenixedu.spaces.domain.occupation.config.OccupationConfig;
+import org.joda.time.Interval;
+
+/**
+ * Immutable index over the intervals of a set of occupations.
+ *
+ * Intervals are kept sorted by start together with the running maximum of their ends, so asking whether any interval
+ * overlaps a given one is a binary search. Each index remembers the config of every occupation it was built from, which
+ * allows a space to check that its cached index still matches its occupations without reading any interval.
+ *
+ * @see org.fenixedu.spaces.domain.Space#getOccupationIndex()
+ */
+public final class OccupationIndex {
+
+    private static final OccupationIndex EMPTY = new OccupationIndex(new long[0], new long[0], new Occupation[0],
+            Collections.emptyMap());
+
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+    private final Occupation[] occupations;
+    private final Map<Occupation, OccupationConfig> configs;
+    private volatile OccupancyBitmap bitmap;
+
+    private OccupationIndex(long[] starts, long[] ends, Occupation[] occupations, Map<Occupation, OccupationConfig> configs) {
+        this.starts = starts;
+        this.ends = ends;
+        this.occupations = occupations;
+        this.configs = configs;
+        this.maxEnds = new long[ends.length];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < ends.length; i++) {
+            max = Math.max(max, ends[i]);
+            maxEnds[i] = max;
+        }
+    }
+
+    public static OccupationIndex empty() {
+        return EMPTY;
+    }
+
+    public static OccupationIndex of(Collection<Occupation> occupations) {
+        final Map<Occupation, OccupationConfig> configs = new HashMap<>();
+        int size = 0;
+        for (Occupation occupation : occupations) {
+            configs.put(occupation, occupation.getConfig());
+            size += intervalsOf(occupation.getConfig()).size();
+        }
+        final Entries entries = new Entries(size);
+        for (Occupation occupation : occupations) {
+            entries.addAll(occupation, intervalsOf(configs.get(occupation)));
+        }
+        return entries.sort().build(configs);
+    }
+
+    private static List<Interval> intervalsOf(OccupationConfig config) {
+        return config == null ? Collections.emptyList() : config.getIntervals();
+    }
+
+    /**
+     * Returns whether this index was built from exactly the given occupations, each with the config it has now.
+     *
+     * Occupation configs are immutable values, so a config that was replaced is a different instance.
+     */
+    public boolean isValidFor(Set<Occupation> occupations) {
+        if (occupations.size() != configs.size()) {
+            return false;
+        }
+        for (Occupation occupation : occupations) {
+            if (!configs.containsKey(occupation) || configs.get(occupation) != occupation.getConfig()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a copy of this index where the intervals of the given occupation reflect its current config.
+     */
+    public OccupationIndex with(Occupation occupation) {
+        final OccupationIndex base = configs.containsKey(occupation) ? without(occupation) : this;
+        final List<Interval> intervals = intervalsOf(occupation.getConfig());
+        final Entries added = new Entries(intervals.size());
+        added.addAll(occupation, intervals);
+        added.sort();
+
+        final Entries merged = new Entries(base.size() + added.size);
+        int i = 0, j = 0;
+        while (i < base.size() || j < added.size) {
+            if (j == added.size || (i < base.size() && base.starts[i] <= added.starts[j])) {
+                merged.add(base.occupations[i], base.starts[i], base.ends[i]);
+                i++;
+            } else {
+                merged.add(added.owners[j], added.starts[j], added.ends[j]);
+                j++;
+            }
+        }
+        final Map<Occupation, OccupationConfig> updated = new HashMap<>(base.configs);
+        updated.put(occupation, occupation.getConfig());
+        return merged.build(updated);
+    }
+
+    /**
+     * Returns a copy of this index without the intervals of the given occupation.
+     */
+    public OccupationIndex without(Occupation occupation) {
+        if (!configs.containsKey(occupation)) {
+            return this;
+        }
+        final Entries kept = new Entries(size());
+        for (int i = 0; i < size(); i++) {
+            if (occupations[i] != occupation) {
+                kept.add(occupations[i], starts[i], ends[i]);
+            }
+        }
+        final Map<Occupation, OccupationConfig> updated = new HashMap<>(configs);
+        updated.remove(occupation);
+        return kept.build(updated);
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Slot bitmap of the indexed intervals, computed the first time it is needed. Since the index is immutable the bitmap
+     * is always in sync with it.
+     */
+    public OccupancyBitmap getBitmap() {
+        OccupancyBitmap bitmap = this.bitmap;
+        if (bitmap == null) {
+            bitmap = OccupancyBitmap.of(starts, ends);
+            this.bitmap = bitmap;
+        }
+        return bitmap;
+    }
+
+    /**
+     * Does any indexed interval overlap [start, end), with the same semantics as {@link Interval#overlaps}.
+     */
+    public boolean overlaps(long start, long end) {
+        final int candidates = countStartingBefore(end);
+        return candidates > 0 && maxEnds[candidates - 1] > start;
+    }
+
+    public boolean overlaps(Interval interval) {
+        return overlaps(interval.getStartMillis(), interval.getEndMillis());
+    }
+
+    public boolean overlaps(Interval... intervals) {
+        return overlaps(Arrays.asList(intervals));
+    }
+
+    public boolean overlaps(List<Interval> intervals) {
+        for (Interval interval : intervals) {
+            if (overlaps(interval)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The occupations with some interval overlapping [start, end), with the same semantics as {@link Interval#overlaps}.
+     */
+    public Set<Occupation> overlapping(long start, long end) {
+        final Set<Occupation> overlapping = new LinkedHashSet<>();
+        // running maximums never decrease, so once one does not reach the start none of the earlier intervals do
+        for (int i = countStartingBefore(end) - 1; i >= 0 && maxEnds[i] > start; i--) {
+            if (ends[i] > start) {
+                overlapping.add(occupations[i]);
+            }
+        }
+        return overlapping;
+    }
+
+    public Set<Occupation> overlapping(Interval interval) {
+        return overlapping(interval.getStartMillis(), interval.getEndMillis());
+    }
+
+    /**
+     * number of indexed intervals that start strictly before the given instant
+     */
+    private int countStartingBefore(long instant) {
+        int low = 0, high = starts.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (starts[mid] < instant) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static final class Entries {
+        private long[] starts;
+        private long[] ends;
+        private Occupation[] owners;
+        private int size;
+
+        private Entries(int capacity) {
+            starts = new long[capacity];
+            ends = new long[capacity];
+            owners = new Occupation[capacity];
+        }
+
+        private void add(Occupation owner, long start, long end) {
+            starts[size] = start;
+            ends[size] = end;
+            owners[size] = owner;
+            size++;
+        }
+
+        private void addAll(Occupation owner, List<Interval> intervals) {
+            for (Interval interval : intervals) {
+                add(owner, interval.getStartMillis(), interval.getEndMillis());
+            }
+        }
+
+        private Entries sort() {
+            final Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (i1, i2) -> Long.compare(starts[i1], starts[i2]));
+            final long[] sortedStarts = new long[size];
+            final long[] sortedEnds = new long[size];
+            final Occupation[] sortedOwners = new Occupation[size];
+            for (int i = 0; i < size; i++) {
+                sortedStarts[i] = starts[order[i]];
+                sortedEnds[i] = ends[order[i]];
+                sortedOwners[i] = owners[order[i]];
+            }
+            starts = sortedStarts;
+            ends = sortedEnds;
+            owners = sortedOwners;
+            return this;
+        }
+
+        private OccupationIndex build(Map<Occupation, OccupationConfig> configs) {
+            return new OccupationIndex(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), Arrays.copyOf(owners, size),
+                    configs);
+        }
+    }
+}
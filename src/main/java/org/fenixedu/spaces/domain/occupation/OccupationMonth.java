@@ -0,0 +1,124 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain.occupation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import org.fenixedu.bennu.core.domain.Bennu;
+import org.fenixedu.spaces.domain.occupation.config.OccupationConfig;
+import org.joda.time.DateTime;
+import org.joda.time.Interval;
+
+/**
+ * A calendar month along with the occupations that have some interval in it.
+ *
+ * Occupations are put in their months whenever their config is set, so the occupations of a month are found without
+ * looking at the rest of the history.
+ */
+public class OccupationMonth extends OccupationMonth_Base {
+
+    protected OccupationMonth(int year, int month) {
+        super();
+        setBennu(Bennu.getInstance());
+        setYear(year);
+        setMonth(month);
+    }
+
+    /**
+     * The occupations with some interval in the given month. Each occupation is still to be checked against the exact
+     * month interval, since an interval that touches a month may end right at its beginning.
+     */
+    public static Stream<Occupation> getOccupations(int year, int month) {
+        final Integer key = key(year, month);
+        return Bennu.getInstance().getOccupationMonthSet().stream().filter(m -> key.equals(m.getKey()))
+                .flatMap(m -> m.getOccupationSet().stream());
+    }
+
+    /**
+     * Puts the occupation in the months its current config has intervals in, and removes it from every other month.
+     */
+    public static void index(Occupation occupation) {
+        final Set<Integer> keys = keysOf(occupation.getConfig());
+        for (OccupationMonth month : new ArrayList<>(occupation.getOccupationMonthSet())) {
+            if (!keys.remove(month.getKey())) {
+                occupation.removeOccupationMonth(month);
+            }
+        }
+        if (!keys.isEmpty()) {
+            final Map<Integer, OccupationMonth> months = new HashMap<>();
+            for (OccupationMonth month : Bennu.getInstance().getOccupationMonthSet()) {
+                months.put(month.getKey(), month);
+            }
+            for (Integer key : keys) {
+                OccupationMonth month = months.get(key);
+                if (month == null) {
+                    month = new OccupationMonth(key / 12, key % 12 + 1);
+                }
+                occupation.addOccupationMonth(month);
+            }
+        }
+    }
+
+    /**
+     * Puts the given occupation in its months unless it already is in some month or has no config, such as when it was
+     * created before occupations were indexed by month.
+     *
+     * @return whether the occupation was indexed
+     */
+    public static boolean indexIfMissing(Occupation occupation) {
+        if (!occupation.getOccupationMonthSet().isEmpty() || occupation.getConfig() == null) {
+            return false;
+        }
+        index(occupation);
+        return true;
+    }
+
+    private static Set<Integer> keysOf(OccupationConfig config) {
+        final Set<Integer> keys = new TreeSet<>();
+        if (config != null) {
+            for (Interval interval : config.getSortedIntervals()) {
+                final int first = key(interval.getStart());
+                // the end is exclusive, so an interval ending at midnight of the first day does not touch that month
+                final int last = interval.toDurationMillis() == 0 ? first : key(interval.getEnd().minusMillis(1));
+                for (int key = first; key <= last; key++) {
+                    keys.add(key);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static int key(DateTime when) {
+        return key(when.getYear(), when.getMonthOfYear());
+    }
+
+    private static int key(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    private Integer getKey() {
+        return key(getYear(), getMonth());
+    }
+
+}
@@ -71,33 +71,11 @@ public class SharedOccupation extends SharedOccupation_Base {
         return getConfig().getIntervals().stream().filter(i -> !i.contains(new DateTime())).collect(Collectors.toList());
     }
 
-    @Override
-    public Boolean overlaps(List<Interval> intervals) {
-        for (final Interval interval : intervals) {
-            for (final Interval occupationInterval : getIntervals()) {
-                if (occupationInterval.overlaps(interval)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    @Override
-    public boolean overlaps(Interval... intervals) {
-        for (final Interval interval : intervals) {
-            for (final Interval occupationInterval : getIntervals()) {
-                if (occupationInterval.overlaps(interval)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
 
     @Override
     public Boolean isActive() {
-        return !getIntervals().get(getIntervals().size() - 1).getEnd().isBeforeNow();
+        final List<Interval> intervals = getConfig().getSortedIntervals();
+        return !intervals.get(intervals.size() - 1).getEnd().isBeforeNow();
     }
 
     @Override
@@ -126,7 +104,11 @@ public class SharedOccupation extends SharedOccupation_Base {
             setRequest(null);
         }
         setBennu(null);
+        for (Space space : getSpaceSet()) {
+            space.unindexOccupation(this);
+        }
         getSpaceSet().clear();
+        getOccupationMonthSet().clear();
         super.deleteDomainObject();
     }
 
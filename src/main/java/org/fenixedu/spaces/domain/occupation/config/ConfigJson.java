@@ -0,0 +1,192 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain.occupation.config;
+
+import static org.joda.time.DateTimeConstants.MILLIS_PER_HOUR;
+import static org.joda.time.DateTimeConstants.MILLIS_PER_MINUTE;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.joda.time.LocalTime;
+import org.joda.time.chrono.ISOChronology;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Reads the values stored in occupation configs without going through reflection or Joda's general ISO parser.
+ *
+ * Timestamps are stored as {@code yyyy-MM-ddTHH:mm:ss.SSS} followed by {@code Z} or {@code +HH:mm}, which is what
+ * {@link DateTime#toString()} writes; those are read field by field. Anything else falls back to the Joda parsers the
+ * configs have always been read with, so the values read are the same either way.
+ */
+final class ConfigJson {
+
+    private static final ISOChronology UTC = ISOChronology.getInstanceUTC();
+
+    private ConfigJson() {
+    }
+
+    /**
+     * Same as {@link DateTime#parse(String)}: the result keeps the offset it was written with.
+     */
+    static DateTime dateTime(JsonElement json) {
+        if (isNull(json)) {
+            return null;
+        }
+        final String text = json.getAsString();
+        final int offset = parseOffset(text);
+        if (offset == Integer.MIN_VALUE) {
+            return DateTime.parse(text);
+        }
+        return new DateTime(parseLocalMillis(text) - offset, DateTimeZone.forOffsetMillis(offset));
+    }
+
+    /**
+     * Same as {@link DateTime#DateTime(Object)}: the result is in the default time zone.
+     */
+    static DateTime instant(String text) {
+        final int offset = parseOffset(text);
+        if (offset == Integer.MIN_VALUE) {
+            return new DateTime(text);
+        }
+        return new DateTime(parseLocalMillis(text) - offset);
+    }
+
+    static LocalTime localTime(JsonElement json) {
+        if (isNull(json)) {
+            return null;
+        }
+        final String text = json.getAsString();
+        if (text.length() == 8 && text.charAt(2) == ':' && text.charAt(5) == ':' && digits(text, 0, 2) && digits(text, 3, 5)
+                && digits(text, 6, 8)) {
+            return new LocalTime(number(text, 0, 2), number(text, 3, 5), number(text, 6, 8));
+        }
+        return LocalTime.parse(text);
+    }
+
+    static Interval interval(JsonElement json) {
+        if (isNull(json)) {
+            return null;
+        }
+        final JsonObject intervalJson = json.getAsJsonObject();
+        return new Interval(instant(intervalJson.get("start").getAsString()), instant(intervalJson.get("end").getAsString()));
+    }
+
+    /**
+     * Reads both the epoch minutes arrays and the arrays of interval objects.
+     */
+    static List<Interval> intervals(JsonElement json) {
+        if (isNull(json)) {
+            return null;
+        }
+        final JsonArray array = json.getAsJsonArray();
+        final List<Interval> intervals = new ArrayList<>(array.size());
+        if (array.size() > 0 && array.get(0).isJsonPrimitive()) {
+            long start = 0;
+            for (int i = 0; i + 1 < array.size(); i += 2) {
+                start += array.get(i).getAsLong();
+                final long end = start + array.get(i + 1).getAsLong();
+                intervals.add(new Interval(start * MILLIS_PER_MINUTE, end * MILLIS_PER_MINUTE));
+            }
+        } else {
+            for (JsonElement element : array) {
+                intervals.add(interval(element));
+            }
+        }
+        return intervals;
+    }
+
+    static List<Integer> integers(JsonElement json) {
+        if (isNull(json)) {
+            return null;
+        }
+        final List<Integer> integers = new ArrayList<>();
+        for (JsonElement element : json.getAsJsonArray()) {
+            integers.add(element.getAsInt());
+        }
+        return integers;
+    }
+
+    static Integer integer(JsonElement json) {
+        return isNull(json) ? null : json.getAsInt();
+    }
+
+    static Boolean bool(JsonElement json) {
+        return isNull(json) ? null : json.getAsBoolean();
+    }
+
+    static <T extends Enum<T>> T enumValue(Class<T> type, JsonElement json) {
+        return isNull(json) ? null : Enum.valueOf(type, json.getAsString());
+    }
+
+    private static boolean isNull(JsonElement json) {
+        return json == null || json.isJsonNull();
+    }
+
+    /**
+     * The offset of a timestamp in the expected format, or {@link Integer#MIN_VALUE} if it is in any other.
+     */
+    private static int parseOffset(String text) {
+        if (text.length() < 24 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':' || text.charAt(19) != '.' || !digits(text, 0, 4)
+                || !digits(text, 5, 7) || !digits(text, 8, 10) || !digits(text, 11, 13) || !digits(text, 14, 16)
+                || !digits(text, 17, 19) || !digits(text, 20, 23)) {
+            return Integer.MIN_VALUE;
+        }
+        if (text.length() == 24 && text.charAt(23) == 'Z') {
+            return 0;
+        }
+        final char sign = text.charAt(23);
+        if (text.length() == 29 && (sign == '+' || sign == '-') && text.charAt(26) == ':' && digits(text, 24, 26)
+                && digits(text, 27, 29)) {
+            final int offset = number(text, 24, 26) * MILLIS_PER_HOUR + number(text, 27, 29) * MILLIS_PER_MINUTE;
+            return sign == '+' ? offset : -offset;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    private static long parseLocalMillis(String text) {
+        return UTC.getDateTimeMillis(number(text, 0, 4), number(text, 5, 7), number(text, 8, 10), number(text, 11, 13),
+                number(text, 14, 16), number(text, 17, 19), number(text, 20, 23));
+    }
+
+    private static boolean digits(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int number(String text, int from, int to) {
+        int number = 0;
+        for (int i = from; i < to; i++) {
+            number = number * 10 + text.charAt(i) - '0';
+        }
+        return number;
+    }
+
+}
@@ -18,10 +18,10 @@
  */
 package org.fenixedu.spaces.domain.occupation.config;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
 
 import org.joda.time.DateTime;
+import org.joda.time.Days;
 import org.joda.time.Interval;
 import org.joda.time.LocalTime;
 
@@ -32,16 +32,16 @@ public class DailyConfig extends RepeatableConfig {
     }
 
     @Override
-    public List<Interval> getIntervals() {
-        List<Interval> intervals = new ArrayList<>();
-        DateTime startDate = getInterval().getStart();
-        DateTime endDate = getInterval().getEnd();
-        DateTime start = startDate;
-        while (start.isBefore(endDate) || start.isEqual(endDate)) {
-            intervals.add(new Interval(start.withFields(getStartTime()), start.withFields(getEndTime())));
-            start = start.plusDays(getRepeatsEvery());
-        }
-        return intervals;
+    protected Iterator<DateTime> occurrencesFrom(DateTime from) {
+        final DateTime startDate = getInterval().getStart();
+        final int days = Days.daysBetween(startDate.toLocalDate(), from.toLocalDate()).getDays();
+        final int skipped = Math.max(days, 0) / getRepeatsEvery() * getRepeatsEvery();
+        return new Occurrences(startDate.plusDays(skipped)) {
+            @Override
+            protected DateTime after(DateTime occurrence) {
+                return occurrence.plusDays(getRepeatsEvery());
+            }
+        };
     }
 
 }
@@ -18,13 +18,13 @@
  */
 package org.fenixedu.spaces.domain.occupation.config;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
+import java.util.Iterator;
 
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
 import org.joda.time.LocalTime;
+import org.joda.time.Months;
 
 public class MonthlyConfig extends RepeatableConfig {
 
@@ -40,45 +40,59 @@ public class MonthlyConfig extends RepeatableConfig {
     }
 
     @Override
-    public List<Interval> getIntervals() {
+    protected Iterator<DateTime> occurrencesFrom(DateTime from) {
         switch (monthlyType) {
         case DAY_OF_MONTH:
-            return getDayOfMonthIntervals();
+            return getDayOfMonthOccurrences(from);
         case DAY_OF_WEEK:
-            return getDayOfWeekIntervals();
+            return getDayOfWeekOccurrences();
         }
-        return Collections.emptyList();
+        return Collections.emptyIterator();
     }
 
-    private List<Interval> getDayOfWeekIntervals() {
-        final List<Interval> intervals = new ArrayList<>();
+    /**
+     * Occurrences on the last week of a month may land weeks away from it, even on another year, so they are never walked
+     * lazily.
+     */
+    @Override
+    protected boolean walksInOrder() {
+        return monthlyType != MonthlyType.DAY_OF_WEEK;
+    }
 
+    /**
+     * Always walked from the start, since occurrences are not walked lazily and each one depends on the previous one.
+     */
+    private Iterator<DateTime> getDayOfWeekOccurrences() {
         DateTime startDate = getInterval().getStart();
         int nthDayOfWeek = getNthDayOfWeek(startDate);
         int dayOfWeek = startDate.getDayOfWeek();
 
-        DateTime endDate = getInterval().getEnd();
-
-        DateTime start = startDate;
-        while (start.isBefore(endDate) || start.isEqual(endDate)) {
-            intervals.add(new Interval(start.withFields(getStartTime()), start.withFields(getEndTime())));
-            start = start.plusMonths(getRepeatsEvery());
-            start = getNextNthdayOfWeek(start, nthDayOfWeek, dayOfWeek);
-        }
-
-        return intervals;
+        return new Occurrences(startDate) {
+            @Override
+            protected DateTime after(DateTime occurrence) {
+                return getNextNthdayOfWeek(occurrence.plusMonths(getRepeatsEvery()), nthDayOfWeek, dayOfWeek);
+            }
+        };
     }
 
-    private List<Interval> getDayOfMonthIntervals() {
-        final List<Interval> intervals = new ArrayList<>();
+    /**
+     * Months are only skipped when the config starts on one of the first 28 days, since adding months one at a time is
+     * only the same as adding them all at once when no day is clamped.
+     */
+    private Iterator<DateTime> getDayOfMonthOccurrences(DateTime from) {
         DateTime startDate = getInterval().getStart();
-        DateTime endDate = getInterval().getEnd();
-        DateTime start = startDate;
-        while (start.isBefore(endDate) || start.isEqual(endDate)) {
-            intervals.add(new Interval(start.withFields(getStartTime()), start.withFields(getEndTime())));
-            start = start.plusMonths(getRepeatsEvery());
-        }
-        return intervals;
+        int skipped = startDate.getDayOfMonth() > 28 ? 0 : getSkippedMonths(startDate, from);
+        return new Occurrences(startDate.plusMonths(skipped)) {
+            @Override
+            protected DateTime after(DateTime occurrence) {
+                return occurrence.plusMonths(getRepeatsEvery());
+            }
+        };
+    }
+
+    private int getSkippedMonths(DateTime startDate, DateTime from) {
+        int months = Months.monthsBetween(startDate.toLocalDate(), from.toLocalDate()).getMonths();
+        return Math.max(months, 0) / getRepeatsEvery() * getRepeatsEvery();
     }
 
     private int getNthDayOfWeek(DateTime when) {
@@ -18,16 +18,31 @@
  */
 package org.fenixedu.spaces.domain.occupation.config;
 
+import static org.fenixedu.spaces.domain.occupation.config.ConfigJson.bool;
+import static org.fenixedu.spaces.domain.occupation.config.ConfigJson.dateTime;
+import static org.fenixedu.spaces.domain.occupation.config.ConfigJson.enumValue;
+import static org.fenixedu.spaces.domain.occupation.config.ConfigJson.integer;
+import static org.fenixedu.spaces.domain.occupation.config.ConfigJson.integers;
+import static org.fenixedu.spaces.domain.occupation.config.ConfigJson.interval;
+import static org.fenixedu.spaces.domain.occupation.config.ConfigJson.intervals;
+import static org.fenixedu.spaces.domain.occupation.config.ConfigJson.localTime;
+import static org.joda.time.DateTimeConstants.MILLIS_PER_MINUTE;
+
 import java.lang.reflect.Type;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Function;
 
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
 import org.joda.time.LocalTime;
 
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableBiMap;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
@@ -37,11 +52,34 @@ import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
 
 public abstract class OccupationConfig {
 
     private static final Gson gson;
 
+    private static final Type INTERVAL_LIST = new TypeToken<List<Interval>>() {
+    }.getType();
+
+    /**
+     * Short tags stored instead of the class name of each config. Class names are still accepted when reading.
+     */
+    private static final BiMap<String, Class<? extends OccupationConfig>> TYPES = ImmutableBiMap
+            .<String, Class<? extends OccupationConfig>> builder().put("daily", DailyConfig.class)
+            .put("weekly", WeeklyConfig.class).put("monthly", MonthlyConfig.class).put("yearly", YearlyConfig.class)
+            .put("explicit", ExplicitConfig.class).put("single", SingleConfig.class)
+            .put("settings", ExplicitConfigWithSettings.class).build();
+
+    /**
+     * Hand-written readers of the known configs, by tag and by class name. Configs of any other type are read by Gson.
+     */
+    private static final Map<String, Function<JsonObject, OccupationConfig>> READERS = new HashMap<>();
+
+    /**
+     * Configs are immutable, so their sorted intervals are computed once. Transient so it is never externalized.
+     */
+    private transient volatile SortedIntervals sortedIntervals;
+
     static {
         gson = new GsonBuilder().registerTypeAdapter(Interval.class, new JsonSerializer<Interval>() {
 
@@ -57,10 +95,37 @@ public abstract class OccupationConfig {
             @Override
             public Interval deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
                     throws JsonParseException {
-                final JsonObject intervalJson = json.getAsJsonObject();
-                final DateTime start = new DateTime(intervalJson.get("start").getAsString());
-                final DateTime end = new DateTime(intervalJson.get("end").getAsString());
-                return new Interval(start, end);
+                return interval(json);
+            }
+        }).registerTypeAdapter(INTERVAL_LIST, new JsonSerializer<List<Interval>>() {
+
+            /**
+             * Writes the intervals as a flat array of epoch minutes, with each start relative to the previous one and each
+             * end relative to its start. Intervals that do not fall on minutes are written one object per interval.
+             */
+            @Override
+            public JsonElement serialize(List<Interval> src, Type typeOfSrc, JsonSerializationContext context) {
+                final JsonArray json = new JsonArray();
+                for (Interval interval : src) {
+                    if (interval.getStartMillis() % MILLIS_PER_MINUTE != 0 || interval.getEndMillis() % MILLIS_PER_MINUTE != 0) {
+                        return context.serialize(src.toArray(new Interval[src.size()]));
+                    }
+                }
+                long previous = 0;
+                for (Interval interval : src) {
+                    final long start = interval.getStartMillis() / MILLIS_PER_MINUTE;
+                    json.add(new JsonPrimitive(start - previous));
+                    json.add(new JsonPrimitive(interval.getEndMillis() / MILLIS_PER_MINUTE - start));
+                    previous = start;
+                }
+                return json;
+            }
+        }).registerTypeAdapter(INTERVAL_LIST, new JsonDeserializer<List<Interval>>() {
+
+            @Override
+            public List<Interval> deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
+                    throws JsonParseException {
+                return intervals(json);
             }
         }).registerTypeAdapter(LocalTime.class, new JsonSerializer<LocalTime>() {
 
@@ -73,14 +138,14 @@ public abstract class OccupationConfig {
             @Override
             public LocalTime deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
                     throws JsonParseException {
-                return LocalTime.parse(json.getAsString());
+                return localTime(json);
             }
         }).registerTypeAdapter(DateTime.class, new JsonDeserializer<DateTime>() {
 
             @Override
             public DateTime deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
                     throws JsonParseException {
-                return DateTime.parse(json.getAsString());
+                return dateTime(json);
             }
 
         }).registerTypeAdapter(DateTime.class, new JsonSerializer<DateTime>() {
@@ -93,6 +158,35 @@ public abstract class OccupationConfig {
         }).create();
     }
 
+    static {
+        reader(DailyConfig.class,
+                json -> new DailyConfig(interval(json.get("interval")), localTime(json.get("startTime")), localTime(json
+                        .get("endTime")), integer(json.get("repeatsEvery"))));
+        reader(WeeklyConfig.class,
+                json -> new WeeklyConfig(interval(json.get("interval")), localTime(json.get("startTime")), localTime(json
+                        .get("endTime")), integer(json.get("repeatsEvery")), integers(json.get("daysOfWeek"))));
+        reader(MonthlyConfig.class,
+                json -> new MonthlyConfig(interval(json.get("interval")), localTime(json.get("startTime")), localTime(json
+                        .get("endTime")), integer(json.get("repeatsEvery")), enumValue(MonthlyConfig.MonthlyType.class,
+                        json.get("monthlyType"))));
+        reader(YearlyConfig.class,
+                json -> new YearlyConfig(interval(json.get("interval")), localTime(json.get("startTime")), localTime(json
+                        .get("endTime")), integer(json.get("repeatsEvery"))));
+        reader(ExplicitConfig.class, json -> new ExplicitConfig(json.get("config"), intervals(json.get("intervals"))));
+        reader(SingleConfig.class, json -> new SingleConfig(json.get("config"), intervals(json.get("intervals")).get(0)));
+        reader(ExplicitConfigWithSettings.class,
+                json -> new ExplicitConfigWithSettings(dateTime(json.get("start")), dateTime(json.get("end")), bool(json
+                        .get("allDay")), integer(json.get("repeatsevery")), enumValue(
+                        ExplicitConfigWithSettings.Frequency.class, json.get("frequency")), integers(json.get("weekdays")),
+                        enumValue(ExplicitConfigWithSettings.MonthlyType.class, json.get("monthlyType")), intervals(json
+                                .get("intervals"))));
+    }
+
+    private static void reader(Class<? extends OccupationConfig> type, Function<JsonObject, OccupationConfig> reader) {
+        READERS.put(TYPES.inverse().get(type), reader);
+        READERS.put(type.getName(), reader);
+    }
+
     public abstract List<Interval> getIntervals();
 
     public static OccupationConfig internalize(JsonElement json) {
@@ -101,6 +195,10 @@ public abstract class OccupationConfig {
         }
         final JsonObject jsonObject = json.getAsJsonObject();
         final String type = jsonObject.get("type").getAsString();
+        final Function<JsonObject, OccupationConfig> reader = READERS.get(type);
+        if (reader != null) {
+            return reader.apply(jsonObject);
+        }
         try {
             return (OccupationConfig) gson.fromJson(json, Class.forName(type));
         } catch (JsonSyntaxException | ClassNotFoundException e) {
@@ -110,7 +208,8 @@ public abstract class OccupationConfig {
 
     public JsonElement externalize() {
         final JsonElement jsonTree = gson.toJsonTree(this, this.getClass());
-        jsonTree.getAsJsonObject().addProperty("type", this.getClass().getName());
+        final String type = TYPES.inverse().get(this.getClass());
+        jsonTree.getAsJsonObject().addProperty("type", type != null ? type : this.getClass().getName());
         return jsonTree;
     }
 
@@ -127,14 +226,47 @@ public abstract class OccupationConfig {
     }
 
     public DateTime getStart() {
-        return getSortedIntervals().isEmpty() ? null : getSortedIntervals().get(0).getStart();
+        final List<Interval> sorted = getSortedIntervals();
+        return sorted.isEmpty() ? null : sorted.get(0).getStart();
     }
 
     public DateTime getEnd() {
-        return getSortedIntervals().isEmpty() ? null : getSortedIntervals().get(getSortedIntervals().size() - 1).getEnd();
+        final List<Interval> sorted = getSortedIntervals();
+        return sorted.isEmpty() ? null : sorted.get(sorted.size() - 1).getEnd();
+    }
+
+    public int getIntervalCount() {
+        return getSortedIntervals().size();
     }
 
-    private List<Interval> getSortedIntervals() {
-        return getIntervals().stream().sorted((i1, i2) -> i1.getStart().compareTo(i2.getStart())).collect(Collectors.toList());
+    /**
+     * Immutable list of the intervals of this config sorted by start.
+     */
+    public List<Interval> getSortedIntervals() {
+        return sorted().getIntervals();
+    }
+
+    /**
+     * The intervals of this config that overlap the given window, as defined by {@link Interval#overlaps}. Only the
+     * intervals near the window are looked at, and they are not guaranteed to come in order.
+     */
+    public Iterable<Interval> intervalsWithin(Interval window) {
+        return sorted().within(window);
+    }
+
+    /**
+     * Does any interval of this config overlap any of the given ones, as defined by {@link Interval#overlaps}.
+     */
+    public boolean overlaps(List<Interval> intervals) {
+        return sorted().overlaps(intervals);
+    }
+
+    private SortedIntervals sorted() {
+        SortedIntervals sorted = sortedIntervals;
+        if (sorted == null) {
+            sorted = SortedIntervals.of(getIntervals());
+            sortedIntervals = sorted;
+        }
+        return sorted;
     }
 }
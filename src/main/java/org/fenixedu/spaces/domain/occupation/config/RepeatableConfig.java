@@ -18,9 +18,17 @@
  */
 package org.fenixedu.spaces.domain.occupation.config;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.joda.time.DateTime;
 import org.joda.time.Interval;
+import org.joda.time.LocalDate;
 import org.joda.time.LocalTime;
 
+import com.google.common.collect.AbstractIterator;
+
 public abstract class RepeatableConfig extends OccupationConfig {
 
     private final Interval interval;
@@ -29,6 +37,8 @@ public abstract class RepeatableConfig extends OccupationConfig {
 
     private final Integer repeatsEvery;
 
+    private transient volatile List<Interval> generatedIntervals;
+
     public RepeatableConfig(Interval interval, LocalTime startTime, LocalTime endTime, Integer repeatsEvery) {
         this.interval = interval;
         this.startTime = startTime;
@@ -52,4 +62,100 @@ public abstract class RepeatableConfig extends OccupationConfig {
         return repeatsEvery;
     }
 
+    /**
+     * The occurrences of this config, generated the first time they are needed and kept sorted by start.
+     */
+    @Override
+    public final List<Interval> getIntervals() {
+        List<Interval> intervals = generatedIntervals;
+        if (intervals == null) {
+            intervals = SortedIntervals.sortByStart(generateIntervals());
+            generatedIntervals = intervals;
+        }
+        return intervals;
+    }
+
+    private List<Interval> generateIntervals() {
+        final List<Interval> intervals = new ArrayList<>();
+        final Iterator<DateTime> occurrences = occurrencesFrom(getInterval().getStart());
+        while (occurrences.hasNext()) {
+            intervals.add(toInterval(occurrences.next()));
+        }
+        return intervals;
+    }
+
+    /**
+     * Unless the occurrences were already generated, walks them from close to the window instead of generating them all.
+     */
+    @Override
+    public Iterable<Interval> intervalsWithin(Interval window) {
+        if (generatedIntervals != null || !walksInOrder()) {
+            return super.intervalsWithin(window);
+        }
+        return () -> new AbstractIterator<Interval>() {
+            private final Iterator<DateTime> occurrences = occurrencesFrom(window.getStart());
+            // occurrences may go back at most to the start of their week, so this is the last day worth walking to
+            private final LocalDate lastDay = window.getEnd().toLocalDate().plusDays(6);
+
+            @Override
+            protected Interval computeNext() {
+                while (occurrences.hasNext()) {
+                    final DateTime occurrence = occurrences.next();
+                    if (occurrence.toLocalDate().isAfter(lastDay)) {
+                        break;
+                    }
+                    final Interval interval = toInterval(occurrence);
+                    if (interval.overlaps(window)) {
+                        return interval;
+                    }
+                }
+                return endOfData();
+            }
+        };
+    }
+
+    private Interval toInterval(DateTime occurrence) {
+        return new Interval(occurrence.withFields(getStartTime()), occurrence.withFields(getEndTime()));
+    }
+
+    /**
+     * Whether {@link #occurrencesFrom} keeps the order it promises, so that walking the occurrences may stop a week after
+     * the window. Configs whose occurrences may land further from the day they are generated from are always generated.
+     */
+    protected boolean walksInOrder() {
+        return true;
+    }
+
+    /**
+     * The days this config occurs on, in the order they have always been generated, up to the end of its interval.
+     *
+     * Implementations may skip the occurrences on days before the given one, as long as skipping gives exactly the same
+     * days as walking from the start would. Occurrences come in increasing order, except that those within the same
+     * week may come in any order.
+     */
+    protected abstract Iterator<DateTime> occurrencesFrom(DateTime from);
+
+    /**
+     * Walks the occurrences from the given one until the end of the interval of the config.
+     */
+    protected abstract class Occurrences extends AbstractIterator<DateTime> {
+        private DateTime next;
+
+        protected Occurrences(DateTime first) {
+            this.next = first;
+        }
+
+        protected abstract DateTime after(DateTime occurrence);
+
+        @Override
+        protected DateTime computeNext() {
+            if (next.isAfter(getInterval().getEnd())) {
+                return endOfData();
+            }
+            final DateTime occurrence = next;
+            next = after(occurrence);
+            return occurrence;
+        }
+    }
+
 }
@@ -0,0 +1,156 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.domain.occupation.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.joda.time.Interval;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Ordering;
+
+/**
+ * Immutable list of intervals sorted by start along with the running maximum of their ends.
+ *
+ * Every question about overlaps is answered with the same semantics as {@link Interval#overlaps}: the intervals that
+ * start before some instant are a prefix of the list, and some interval of that prefix ends after another instant if
+ * and only if the running maximum at the end of the prefix does.
+ */
+public final class SortedIntervals {
+
+    private static final Comparator<Interval> BY_START = Comparator.comparingLong(Interval::getStartMillis);
+    private static final Comparator<Interval> BY_END = Comparator.comparingLong(Interval::getEndMillis);
+
+    private final List<Interval> intervals;
+    private final long[] starts;
+    private final long[] maxEnds;
+
+    private SortedIntervals(List<Interval> intervals) {
+        this.intervals = intervals;
+        this.starts = new long[intervals.size()];
+        this.maxEnds = new long[intervals.size()];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < starts.length; i++) {
+            final Interval interval = intervals.get(i);
+            starts[i] = interval.getStartMillis();
+            max = Math.max(max, interval.getEndMillis());
+            maxEnds[i] = max;
+        }
+    }
+
+    public static SortedIntervals of(List<Interval> intervals) {
+        final boolean sorted = intervals instanceof ImmutableList && Ordering.from(BY_START).isOrdered(intervals);
+        return new SortedIntervals(sorted ? intervals : sortByStart(intervals));
+    }
+
+    static List<Interval> sortByStart(List<Interval> intervals) {
+        final Interval[] sorted = intervals.toArray(new Interval[intervals.size()]);
+        Arrays.sort(sorted, BY_START);
+        return ImmutableList.copyOf(sorted);
+    }
+
+    public List<Interval> getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * The intervals that overlap the given window, in order of start.
+     */
+    public Iterable<Interval> within(Interval window) {
+        final int from = countUpTo(maxEnds, 0, window.getStartMillis());
+        final int to = countUpTo(starts, from, window.getEndMillis() - 1);
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+        return Iterables.filter(intervals.subList(from, to), interval -> interval.overlaps(window));
+    }
+
+    /**
+     * Does any of these intervals overlap any of the given ones.
+     *
+     * The given intervals are visited by increasing end, so the prefix of candidates only grows and is found by galloping
+     * from where the previous one ended. Checking k intervals against n costs O(k log(n / k)) on top of sorting them,
+     * which is linear when both lists have similar sizes and logarithmic when only a few intervals are given.
+     */
+    public boolean overlaps(List<Interval> others) {
+        if (starts.length == 0 || others.isEmpty()) {
+            return false;
+        }
+        final Interval[] sorted = others.toArray(new Interval[others.size()]);
+        if (!Ordering.from(BY_END).isOrdered(others)) {
+            Arrays.sort(sorted, BY_END);
+        }
+        int candidates = 0;
+        for (Interval other : sorted) {
+            candidates = gallopUpTo(starts, candidates, other.getEndMillis() - 1);
+            if (candidates > 0 && maxEnds[candidates - 1] > other.getStartMillis()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean overlaps(Interval other) {
+        final int candidates = countUpTo(starts, 0, other.getEndMillis() - 1);
+        return candidates > 0 && maxEnds[candidates - 1] > other.getStartMillis();
+    }
+
+    /**
+     * index of the first value greater than the given one, searching from {@code from} on
+     */
+    private static int countUpTo(long[] sorted, int from, long value) {
+        int low = from, high = sorted.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Same as {@link #countUpTo}, but looks for the answer close to {@code from} first.
+     */
+    private static int gallopUpTo(long[] sorted, int from, long value) {
+        int step = 1;
+        int low = from;
+        while (low + step <= sorted.length && sorted[low + step - 1] <= value) {
+            low += step;
+            step <<= 1;
+        }
+        int high = Math.min(low + step, sorted.length);
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+}
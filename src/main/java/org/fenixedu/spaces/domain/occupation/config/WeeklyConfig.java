@@ -18,12 +18,14 @@
  */
 package org.fenixedu.spaces.domain.occupation.config;
 
-import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
 import org.joda.time.Interval;
 import org.joda.time.LocalTime;
+import org.joda.time.Weeks;
 
 public class WeeklyConfig extends RepeatableConfig {
 
@@ -38,10 +40,8 @@ public class WeeklyConfig extends RepeatableConfig {
     }
 
     @Override
-    public List<Interval> getIntervals() {
-        final List<Interval> intervals = new ArrayList<>();
+    protected Iterator<DateTime> occurrencesFrom(DateTime from) {
         DateTime start = getInterval().getStart();
-        DateTime end = getInterval().getEnd();
 
         // adjust start date to correct day of the week
         int firstDayOfWeekIndex = daysOfWeek.indexOf(start.getDayOfWeek());
@@ -50,23 +50,32 @@ public class WeeklyConfig extends RepeatableConfig {
         }
 
         DateTime checkpoint = start.withDayOfWeek(daysOfWeek.get(firstDayOfWeekIndex));
-        if (checkpoint.isBefore(start)) {
-            checkpoint.plusWeeks(1);
+
+        // skip the whole rounds of weeks that are over before the week of the given instant
+        int weeks = Weeks.weeksBetween(checkpoint.toLocalDate().withDayOfWeek(DateTimeConstants.MONDAY),
+                from.toLocalDate().withDayOfWeek(DateTimeConstants.MONDAY)).getWeeks();
+        if (weeks > 0) {
+            int skippedWeeks = (weeks + getRepeatsEvery() - 1) / getRepeatsEvery() * getRepeatsEvery();
+            checkpoint = checkpoint.plusWeeks(skippedWeeks).withDayOfWeek(daysOfWeek.get(0));
+            firstDayOfWeekIndex = 0;
         }
 
-        int i = firstDayOfWeekIndex;
+        final int first = firstDayOfWeekIndex;
+        return new Occurrences(checkpoint) {
+            private int i = first;
 
-        while (checkpoint.isBefore(end) || checkpoint.isEqual(end)) {
-            intervals.add(new Interval(checkpoint.withFields(getStartTime()), checkpoint.withFields(getEndTime())));
-            if (i == daysOfWeek.size() - 1) {
-                i = 0;
-                checkpoint = checkpoint.plusWeeks(getRepeatsEvery());
-            } else {
-                i++;
+            @Override
+            protected DateTime after(DateTime occurrence) {
+                DateTime next = occurrence;
+                if (i == daysOfWeek.size() - 1) {
+                    i = 0;
+                    next = next.plusWeeks(getRepeatsEvery());
+                } else {
+                    i++;
+                }
+                return next.withDayOfWeek(daysOfWeek.get(i));
             }
-            checkpoint = checkpoint.withDayOfWeek(daysOfWeek.get(i));
-        }
-        return intervals;
+        };
     }
 
 }
@@ -18,12 +18,13 @@
  */
 package org.fenixedu.spaces.domain.occupation.config;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Iterator;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
 import org.joda.time.Interval;
 import org.joda.time.LocalTime;
+import org.joda.time.Years;
 
 public class YearlyConfig extends RepeatableConfig {
 
@@ -31,17 +32,24 @@ public class YearlyConfig extends RepeatableConfig {
         super(interval, startTime, endTime, repeatsEvery);
     }
 
+    /**
+     * Occurrences are skipped unless the config starts on the 29th of February, since adding years one at a time is only
+     * the same as adding them all at once when no day is clamped.
+     */
     @Override
-    public List<Interval> getIntervals() {
-        List<Interval> intervals = new ArrayList<>();
-        DateTime startDate = getInterval().getStart();
-        DateTime endDate = getInterval().getEnd();
-        DateTime start = startDate;
-        while (start.isBefore(endDate) || start.isEqual(endDate)) {
-            intervals.add(new Interval(start.withFields(getStartTime()), start.withFields(getEndTime())));
-            start = start.plusYears(getRepeatsEvery());
+    protected Iterator<DateTime> occurrencesFrom(DateTime from) {
+        final DateTime startDate = getInterval().getStart();
+        int skipped = 0;
+        if (startDate.getMonthOfYear() != DateTimeConstants.FEBRUARY || startDate.getDayOfMonth() != 29) {
+            final int years = Years.yearsBetween(startDate.toLocalDate(), from.toLocalDate()).getYears();
+            skipped = Math.max(years, 0) / getRepeatsEvery() * getRepeatsEvery();
         }
-        return intervals;
+        return new Occurrences(startDate.plusYears(skipped)) {
+            @Override
+            protected DateTime after(DateTime occurrence) {
+                return occurrence.plusYears(getRepeatsEvery());
+            }
+        };
     }
 
 }
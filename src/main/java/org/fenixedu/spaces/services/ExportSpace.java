@@ -15,6 +15,7 @@ import org.fenixedu.commons.spreadsheet.Spreadsheet;
 import org.fenixedu.commons.spreadsheet.Spreadsheet.Row;
 import org.fenixedu.spaces.domain.Space;
 import org.fenixedu.spaces.domain.SpaceClassification;
+import org.fenixedu.spaces.ui.InformationBean;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -65,10 +66,11 @@ public class ExportSpace {
 
         row.setCell((space.getParent() != null) ? StringPath(space.getParent().getPath()) : "--");
         row.setCell(space.getName());
-        row.setCell(space.bean().getIdentification() != null ? space.bean().getIdentification() : "--");
-        row.setCell(space.bean().getBlueprintNumber() != null ? space.bean().getBlueprintNumber() : "--");
-        row.setCell(space.bean().getClassification() != null ? space.bean().getClassification().getName().getContent() : "--");
-        row.setCell(space.bean().getArea() != null ? space.bean().getArea().toString() : "--");
+        final InformationBean information = space.bean();
+        row.setCell(information.getIdentification() != null ? information.getIdentification() : "--");
+        row.setCell(information.getBlueprintNumber() != null ? information.getBlueprintNumber() : "--");
+        row.setCell(information.getClassification() != null ? information.getClassification().getName().getContent() : "--");
+        row.setCell(information.getArea() != null ? information.getArea().toString() : "--");
 
         for (String field : metaKeys) {
             row.setCell((space.getMetadata(field).orElse("--")).toString());
@@ -28,6 +28,7 @@ import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Vector;
 
@@ -64,6 +65,8 @@ public class SpaceBlueprintsDWGProcessor extends DWGProcessor {
 
     private DateTime when;
 
+    private Map<String, Space> childrenByBlueprintNumber;
+
     public SpaceBlueprintsDWGProcessor(Space space, DateTime when, Boolean viewBlueprintNumbers_,
             Boolean viewSpaceIdentifications_, Boolean viewDoorNumbers_, BigDecimal scalePercentage) throws IOException {
 
@@ -94,7 +97,7 @@ public class SpaceBlueprintsDWGProcessor extends DWGProcessor {
             int x = convXCoord(dwgMText.getInsertionPoint()[0], referenceConverter);
             int y = convYCoord(dwgMText.getInsertionPoint()[1], referenceConverter);
 
-            Optional<Space> discoveredSpace = getParentSpace().readChildByBlueprintNumber(text.trim(), when);
+            Optional<Space> discoveredSpace = readChildByBlueprintNumber(text);
             if (discoveredSpace.isPresent()) {
                 String textToInsert =
                         getTextToInsert(text, discoveredSpace.get(), isToViewBlueprintNumbers(), isToViewSpaceIdentifications(),
@@ -116,7 +119,7 @@ public class SpaceBlueprintsDWGProcessor extends DWGProcessor {
             int x = convXCoord(point2D.getX(), referenceConverter);
             int y = convYCoord(point2D.getY(), referenceConverter);
 
-            Optional<Space> discoveredSpace = getParentSpace().readChildByBlueprintNumber(dwgText.getText().trim(), when);
+            Optional<Space> discoveredSpace = readChildByBlueprintNumber(dwgText.getText());
             if (discoveredSpace.isPresent()) {
                 String textToInsert =
                         getTextToInsert(dwgText.getText(), discoveredSpace.get(), isToViewBlueprintNumbers(),
@@ -126,6 +129,13 @@ public class SpaceBlueprintsDWGProcessor extends DWGProcessor {
         }
     }
 
+    private Optional<Space> readChildByBlueprintNumber(String text) {
+        if (childrenByBlueprintNumber == null) {
+            childrenByBlueprintNumber = getParentSpace().getChildrenByBlueprintNumber(when);
+        }
+        return Optional.ofNullable(childrenByBlueprintNumber.get(text.trim()));
+    }
+
     public static BlueprintTextRectangles getBlueprintTextRectangles(final InputStream inputStream, Space parentSpace,
             DateTime when, Boolean viewBlueprintNumbers, Boolean viewOriginalSpaceBlueprint, Boolean viewSpaceIdentifications,
             Boolean viewDoorNumbers, BigDecimal scalePercentage) throws IOException {
@@ -147,13 +157,14 @@ public class SpaceBlueprintsDWGProcessor extends DWGProcessor {
         final DwgFile dwgFile = processor.readDwgFile(file.getAbsolutePath());
         final Vector<DwgObject> dwgObjects = dwgFile.getDwgObjects();
         final ReferenceConverter referenceConverter = new ReferenceConverter(dwgObjects, processor.scaleRatio);
+        final Map<String, Space> children = parentSpace.getChildrenByBlueprintNumber(when);
 
         for (final DwgObject dwgObject : dwgObjects) {
 
             if (dwgObject instanceof DwgText) {
                 DwgText dwgText = ((DwgText) dwgObject);
                 final Point2D point2D = dwgText.getInsertionPoint();
-                Optional<Space> discoveredSpace = parentSpace.readChildByBlueprintNumber(dwgText.getText().trim(), when);
+                Optional<Space> discoveredSpace = Optional.ofNullable(children.get(dwgText.getText().trim()));
                 if (discoveredSpace.isPresent()) {
                     String textToInsert =
                             getTextToInsert(dwgText.getText(), discoveredSpace.get(), viewBlueprintNumbers,
@@ -164,7 +175,7 @@ public class SpaceBlueprintsDWGProcessor extends DWGProcessor {
             } else if (dwgObject instanceof DwgMText) {
                 DwgMText dwgMText = (DwgMText) dwgObject;
                 String text = getText(dwgMText);
-                Optional<Space> discoveredSpace = parentSpace.readChildByBlueprintNumber(text.trim(), when);
+                Optional<Space> discoveredSpace = Optional.ofNullable(children.get(text.trim()));
                 if (discoveredSpace.isPresent()) {
                     String textToInsert =
                             getTextToInsert(text, discoveredSpace.get(), viewBlueprintNumbers, viewSpaceIdentifications,
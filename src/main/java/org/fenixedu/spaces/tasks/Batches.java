@@ -0,0 +1,75 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.tasks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+import java.util.function.ToIntFunction;
+
+import pt.ist.fenixframework.Atomic;
+import pt.ist.fenixframework.Atomic.TxMode;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Runs the work of a task over many domain objects in batches, each committed in a write transaction of its own, so a
+ * conflict only retries its batch and no commit holds the changes to the whole database.
+ *
+ * Each batch runs in a thread of its own, since a transaction started from the thread of the task would join the one the
+ * task runs in.
+ */
+final class Batches {
+
+    private Batches() {
+    }
+
+    /**
+     * Runs the given work over the given objects, a batch of at most size objects at a time, calling back with the number
+     * of objects done and the result of each batch.
+     *
+     * @return the sum of the results of every batch
+     */
+    static <T> int run(Collection<T> objects, int size, ToIntFunction<List<T>> work, Progress progress) throws Exception {
+        final List<T> all = new ArrayList<>(objects);
+        int done = 0;
+        int total = 0;
+        for (List<T> batch : Lists.partition(all, size)) {
+            final FutureTask<Integer> task = new FutureTask<>(() -> runInTransaction(work, batch));
+            final Thread thread = new Thread(task, "spaces-task-batch");
+            thread.start();
+            final int result = task.get();
+            done += batch.size();
+            total += result;
+            progress.batchDone(done, all.size(), result);
+        }
+        return total;
+    }
+
+    @Atomic(mode = TxMode.WRITE)
+    private static <T> int runInTransaction(ToIntFunction<List<T>> work, List<T> batch) {
+        return work.applyAsInt(batch);
+    }
+
+    @FunctionalInterface
+    interface Progress {
+        void batchDone(int done, int total, int result);
+    }
+}
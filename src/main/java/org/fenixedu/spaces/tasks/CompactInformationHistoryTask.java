@@ -0,0 +1,51 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fenixedu.bennu.core.domain.Bennu;
+import org.fenixedu.bennu.scheduler.custom.CustomTask;
+import org.fenixedu.spaces.domain.InformationArchive;
+import org.fenixedu.spaces.domain.Space;
+import org.joda.time.DateTime;
+
+/**
+ * Merges redundant space information and moves the information history older than a year to each space's archive,
+ * deleting the information nothing refers to anymore. Spaces are compacted a few at a time, each batch in a transaction of
+ * its own.
+ */
+public class CompactInformationHistoryTask extends CustomTask {
+
+    private static final int BATCH_SIZE = 20;
+
+    @Override
+    public void runTask() throws Exception {
+        final DateTime archiveBefore = new DateTime().minusYears(1);
+        final List<Space> spaces = new ArrayList<>(Bennu.getInstance().getSpaceSet());
+        spaces.addAll(Bennu.getInstance().getDeletedSpaceSet());
+        final int reclaimed =
+                Batches.run(spaces, BATCH_SIZE, batch -> batch.stream().mapToInt(space -> InformationArchive.compact(space,
+                        archiveBefore)).sum(), (done, total, result) -> taskLog(
+                        "Compacted %d of %d spaces, reclaimed %d information objects\n", done, total, result));
+        taskLog("Compacted the information of %d spaces, reclaimed %d information objects\n", spaces.size(), reclaimed);
+    }
+
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.tasks;
+
+import org.fenixedu.bennu.core.domain.Bennu;
+import org.fenixedu.bennu.scheduler.custom.CustomTask;
+import org.fenixedu.spaces.domain.occupation.OccupationMonth;
+
+/**
+ * Puts the occupations created before occupations were indexed by month in their months. Occupations already in some
+ * month are only read, so the task may be run again safely.
+ */
+public class IndexOccupationMonthsTask extends CustomTask {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void runTask() throws Exception {
+        final int indexed =
+                Batches.run(Bennu.getInstance().getOccupationSet(), BATCH_SIZE,
+                        batch -> (int) batch.stream().filter(OccupationMonth::indexIfMissing).count(),
+                        (done, total, result) -> taskLog("Indexed %d occupations, %d of %d checked\n", result, done, total));
+        taskLog("Indexed %d occupations\n", indexed);
+    }
+
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.tasks;
+
+import org.fenixedu.bennu.core.domain.Bennu;
+import org.fenixedu.bennu.scheduler.custom.CustomTask;
+import org.fenixedu.spaces.domain.Space;
+
+/**
+ * Puts the spaces created before spaces were indexed in the top level spaces and classification indexes. Spaces already
+ * indexed are only read, so the task may be run again safely.
+ */
+public class IndexSpacesTask extends CustomTask {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Override
+    public void runTask() throws Exception {
+        final int indexed =
+                Batches.run(Bennu.getInstance().getSpaceSet(), BATCH_SIZE,
+                        batch -> (int) batch.stream().filter(Space::updateIndexesIfStale).count(),
+                        (done, total, result) -> taskLog("Indexed %d spaces, %d of %d checked\n", result, done, total));
+        taskLog("Indexed %d spaces\n", indexed);
+    }
+
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.tasks;
+
+import org.fenixedu.bennu.scheduler.CronTask;
+import org.fenixedu.bennu.scheduler.annotation.Task;
+import org.fenixedu.spaces.domain.Space;
+
+/**
+ * Checks every space of the in-memory search and attribute indexes of this server again, so they find the changes made on
+ * other servers. Meant to be scheduled every few minutes.
+ */
+@Task(englishTitle = "Recheck the in-memory space indexes", readOnly = true)
+public class RecheckSpaceIndexesTask extends CronTask {
+
+    @Override
+    public void runTask() throws Exception {
+        Space.recheckIndexes();
+    }
+
+}
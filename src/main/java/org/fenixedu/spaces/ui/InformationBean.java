@@ -85,6 +85,23 @@ public class InformationBean {
         setMetadata(metadata);
     }
 
+    public InformationBean(InformationBean bean) {
+        super();
+        this.externalId = bean.externalId;
+        this.allocatableCapacity = bean.allocatableCapacity;
+        this.blueprintNumber = bean.blueprintNumber;
+        this.area = bean.area;
+        this.name = bean.name;
+        this.identification = bean.identification;
+        this.validFrom = bean.validFrom;
+        this.validUntil = bean.validUntil;
+        this.classification = bean.classification;
+        this.metadata = bean.metadata == null ? null : new HashMap<>(bean.metadata);
+        this.blueprint = bean.blueprint;
+        this.blueprintMultipartFile = bean.blueprintMultipartFile;
+        this.user = bean.user;
+    }
+
     public String getExternalId() {
         return externalId;
     }
@@ -24,8 +24,11 @@ import java.util.stream.Collectors;
 
 import org.fenixedu.bennu.core.security.Authenticate;
 import org.fenixedu.bennu.spring.portal.BennuSpringController;
+import org.fenixedu.spaces.domain.Space;
 import org.fenixedu.spaces.domain.occupation.Occupation;
 import org.fenixedu.spaces.domain.occupation.requests.OccupationRequest;
+import org.fenixedu.spaces.ui.services.AvailabilityService;
+import org.fenixedu.spaces.ui.services.OccupationConflictException;
 import org.fenixedu.spaces.ui.services.OccupationService;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
@@ -45,11 +48,16 @@ import com.google.gson.JsonParser;
 @RequestMapping("/spaces/occupations")
 public class OccupationController {
 
+    private static final int BEST_FREE_SPACES = 20;
+
     private final JsonParser jsonParser = new JsonParser();
 
     @Autowired
     OccupationService occupationService;
 
+    @Autowired
+    AvailabilityService availabilityService;
+
     private List<Interval> parseIntervals(String events) {
         final JsonArray jsonEvents = jsonParser.parse(events).getAsJsonArray();
         List<Interval> intervals = new ArrayList<>();
@@ -70,6 +78,11 @@ public class OccupationController {
 
     public String searchSpaces(Model model, @RequestParam String events, @RequestParam String config, @RequestParam(
             required = false) OccupationRequest request, @RequestParam(required = false) String mails) {
+        return searchSpaces(model, events, config, request, mails, null, null);
+    }
+
+    private String searchSpaces(Model model, String events, String config, OccupationRequest request, String mails,
+            Integer capacity, Space preferred) {
         final List<Interval> intervals = parseIntervals(events);
         model.addAttribute("events", events);
         model.addAttribute("config", config);
@@ -77,14 +90,20 @@ public class OccupationController {
         if (mails != null) {
             model.addAttribute("emails", mails);
         }
-        model.addAttribute("freeSpaces", occupationService.searchFreeSpaces(intervals, Authenticate.getUser()));
+        if (capacity == null) {
+            model.addAttribute("freeSpaces", availabilityService.searchFreeSpaces(intervals, Authenticate.getUser()));
+        } else {
+            model.addAttribute("freeSpaces", availabilityService.searchBestFreeSpaces(capacity, preferred, intervals,
+                    Authenticate.getUser(), BEST_FREE_SPACES));
+        }
         return "occupations/searchcreate";
     }
 
     @RequestMapping(value = "search-create", method = RequestMethod.POST)
     public String searchSpaces(Model model, @RequestParam String events, @RequestParam String config, @RequestParam(
-            required = false) OccupationRequest request) {
-        return searchSpaces(model, events, config, request, null);
+            required = false) OccupationRequest request, @RequestParam(required = false) Integer capacity, @RequestParam(
+            required = false) Space preferred) {
+        return searchSpaces(model, events, config, request, null, capacity, preferred);
     }
 
     @RequestMapping(value = "create", method = RequestMethod.POST)
@@ -105,6 +124,10 @@ public class OccupationController {
                 return "redirect:/spaces/occupations/requests/" + request.getExternalId();
             }
             return "redirect:/spaces/occupations/list";
+        } catch (OccupationConflictException e) {
+            model.addAttribute("errorMessage", e.getMessage());
+            model.addAttribute("conflicts", e.getConflicts());
+            return searchSpaces(model, events, config, request, emails);
         } catch (Exception e) {
             model.addAttribute("errorMessage", e.getMessage());
             return searchSpaces(model, events, config, request, emails);
@@ -137,6 +160,10 @@ public class OccupationController {
         try {
             occupationService.editOccupation(occupation, emails, subject, description, selectedSpaces, Authenticate.getUser());
             return "redirect:/spaces/occupations/list";
+        } catch (OccupationConflictException e) {
+            model.addAttribute("errorMessage", e.getMessage());
+            model.addAttribute("conflicts", e.getConflicts());
+            return view(model, occupation);
         } catch (Exception e) {
             model.addAttribute("errorMessage", e.getMessage());
             return view(model, occupation);
@@ -23,19 +23,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigDecimal;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.servlet.UnavailableException;
 import javax.servlet.http.HttpServletResponse;
 
+import org.fenixedu.bennu.core.domain.User;
 import org.fenixedu.bennu.core.security.Authenticate;
 import org.fenixedu.bennu.spring.portal.SpringFunctionality;
 import org.fenixedu.spaces.domain.BlueprintFile;
 import org.fenixedu.spaces.domain.BlueprintFile.BlueprintTextRectangles;
 import org.fenixedu.spaces.domain.Space;
+import org.fenixedu.spaces.json.adapters.SpaceJsonAdapter;
 import org.fenixedu.spaces.services.ExportSpace;
 import org.fenixedu.spaces.services.SpaceBlueprintsDWGProcessor;
 import org.fenixedu.spaces.ui.services.OccupationService;
@@ -52,47 +52,48 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.google.common.base.Strings;
+import com.google.gson.JsonArray;
 
 @SpringFunctionality(app = SpacesController.class, title = "title.spaces.search")
 @RequestMapping("/spaces-view")
 public class SpaceSearchController {
 
+    private static final int MAX_COMPLETIONS = 50;
+    private static final SpaceJsonAdapter SPACE_ADAPTER = new SpaceJsonAdapter();
+
     @Autowired
     private OccupationService occupationService;
 
     @RequestMapping
-    public String home(@RequestParam(required = false) String name, Model model) {
-        return search(name, model);
+    public String home(@RequestParam(required = false) String name, @RequestParam(value = "p", required = false) String page,
+            Model model) {
+        return search(name, page, model);
     }
 
     @RequestMapping(value = "/search")
-    public String search(@RequestParam(required = false) String name, Model model) {
+    public String search(@RequestParam(required = false) String name, @RequestParam(value = "p", required = false) String page,
+            Model model) {
         model.addAttribute("name", name);
         model.addAttribute("currentUser", Authenticate.getUser());
         if (!Strings.isNullOrEmpty(name)) {
-            model.addAttribute("foundSpaces", findSpace(name));
+            model.addAttribute("foundSpaces", occupationService.getBook(Space.findSpaces(name), page));
         }
         return "spaces-view/search";
     }
 
-    private Set<Space> findSpace(String text) {
-        return Space.getSpaces().filter(s -> {
-            List<String> toksToFind = Arrays.asList(text.toLowerCase().split(" "));
-            List<String> toks = Arrays.asList(s.getFullName().toLowerCase().split(" "));
-            for (String token : toksToFind) {
-                boolean contains = false;
-                for (String ss : toks) {
-                    if (ss.contains(token)) {
-                        contains = true;
-                        break;
-                    }
-                }
-                if (contains == false) {
-                    return false;
-                }
-            }
-            return true;
-        }).sorted().collect(Collectors.toSet());
+    /**
+     * Type-ahead for space pickers: the spaces the current user may occupy with words starting with the given text, in
+     * the shape of {@link SpaceJsonAdapter}.
+     */
+    @RequestMapping(value = "/autocomplete", produces = "application/json; charset=utf-8")
+    @ResponseBody
+    public String autocomplete(@RequestParam(required = false) String q, @RequestParam(defaultValue = "10") int size) {
+        final User user = Authenticate.getUser();
+        final JsonArray completions = new JsonArray();
+        for (Space space : Space.completeSpaces(q, Math.min(size, MAX_COMPLETIONS), s -> s.isOccupationMember(user))) {
+            completions.add(SPACE_ADAPTER.view(space, null));
+        }
+        return completions.toString();
     }
 
     @RequestMapping(value = "/schedule/{space}")
@@ -102,8 +103,8 @@ public class SpaceSearchController {
     }
 
     @RequestMapping(value = "/schedule/{space}/events", produces = "application/json; charset=utf-8")
-    public @ResponseBody String schedule(@PathVariable Space space, @RequestParam(required = false) String start, @RequestParam(
-            required = false) String end, Model model) {
+    public void schedule(@PathVariable Space space, @RequestParam(required = false) String start,
+            @RequestParam(required = false) String end, HttpServletResponse response) throws IOException {
         DateTime beginDate;
         DateTime endDate;
 
@@ -116,7 +117,8 @@ public class SpaceSearchController {
             endDate = new DateTime(Long.parseLong(end) * 1000);
         }
 
-        return occupationService.getOccupations(space, new Interval(beginDate, endDate));
+        response.setContentType("application/json; charset=utf-8");
+        occupationService.writeOccupations(space, new Interval(beginDate, endDate), response.getWriter());
     }
 
     private BlueprintTextRectangles getBlueprintTextRectangles(Space space, BigDecimal scale) {
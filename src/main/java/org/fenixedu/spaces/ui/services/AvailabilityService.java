@@ -0,0 +1,181 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.ui.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.fenixedu.bennu.core.domain.User;
+import org.fenixedu.spaces.domain.AuthorizedSpaces;
+import org.fenixedu.spaces.domain.Space;
+import org.fenixedu.spaces.domain.SpaceQuery;
+import org.fenixedu.spaces.domain.occupation.OccupancyBitmap;
+import org.fenixedu.spaces.domain.occupation.Occupation;
+import org.fenixedu.spaces.domain.occupation.OccupationConflict;
+import org.fenixedu.spaces.domain.occupation.OccupationIndex;
+import org.fenixedu.spaces.domain.occupation.config.SortedIntervals;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.Interval;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers "which spaces are free" questions for many spaces at once.
+ *
+ * The requested intervals are turned into a slot bitmap once and and-ed against the bitmap of each space's occupation
+ * index. Spaces whose bitmaps do not intersect the request are free without looking at a single interval; only spaces
+ * that share a slot with the request, which may be a partial one, are checked against the exact intervals. Since the
+ * occupation index of a space is updated whenever its occupations change, so is its bitmap.
+ */
+@Service
+public class AvailabilityService {
+
+    private static final long AROUND_MILLIS = DateTimeConstants.MILLIS_PER_HOUR;
+
+    public boolean isFree(Space space, List<Interval> intervals) {
+        return isFree(space, intervals, OccupancyBitmap.of(intervals));
+    }
+
+    private boolean isFree(Space space, List<Interval> intervals, OccupancyBitmap request) {
+        final OccupationIndex index = space.getOccupationIndex();
+        return !index.getBitmap().intersects(request) || !index.overlaps(intervals);
+    }
+
+    public Stream<Space> freeSpaces(Stream<Space> candidates, List<Interval> intervals) {
+        final OccupancyBitmap request = OccupancyBitmap.of(intervals);
+        return candidates.filter(space -> isFree(space, intervals, request));
+    }
+
+    /**
+     * Every occupation overlapping one of the given intervals in one of the given spaces, as (space, interval,
+     * occupation) triples. Each space is looked at once, and those whose bitmap does not intersect the intervals are
+     * skipped altogether.
+     */
+    public List<OccupationConflict> findConflicts(Collection<Space> spaces, List<Interval> intervals) {
+        final OccupancyBitmap request = OccupancyBitmap.of(intervals);
+        final List<Interval> sorted = SortedIntervals.of(intervals).getIntervals();
+        final List<OccupationConflict> conflicts = new ArrayList<>();
+        for (Space space : spaces) {
+            final OccupationIndex index = space.getOccupationIndex();
+            if (!index.getBitmap().intersects(request)) {
+                continue;
+            }
+            for (Interval interval : sorted) {
+                for (Occupation occupation : index.overlapping(interval)) {
+                    conflicts.add(new OccupationConflict(space, interval, occupation));
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * At most limit spaces the user may occupy that seat at least the given capacity and are free during every one of the
+     * given intervals, best fit first.
+     *
+     * Spaces with fewer seats to spare fit better, then those within the preferred space, if any, and then those with fewer
+     * occupations in the hour around each interval. Candidates come from the attribute index already filtered by capacity,
+     * and their capacity and activity are checked again since the index may be behind. They are kept in a queue bounded by
+     * the limit, so a space that could not beat the worst one kept, even with no occupations around, is never checked for
+     * access or availability.
+     */
+    public List<Space> searchBestFreeSpaces(int capacity, Space preferred, List<Interval> intervals, User user, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        final OccupancyBitmap request = OccupancyBitmap.of(intervals);
+        final PriorityQueue<Fit> best = new PriorityQueue<>(limit, Fit.BEST_FIRST.reversed());
+        for (Space space : Space.query(SpaceQuery.builder().minCapacity(capacity).build())) {
+            final Integer seats = space.getAllocatableCapacity();
+            if (seats == null || seats < capacity || !space.isActive()) {
+                continue;
+            }
+            final int spare = seats - capacity;
+            final boolean isPreferred = preferred != null && space.getPath().contains(preferred);
+            if (best.size() == limit && Fit.BEST_FIRST.compare(new Fit(space, spare, isPreferred, 0), best.peek()) >= 0) {
+                continue;
+            }
+            if (!isFree(space, intervals, request) || !space.isOccupationMember(user)) {
+                continue;
+            }
+            final Fit fit = new Fit(space, spare, isPreferred, countOccupationsAround(space, intervals));
+            if (best.size() < limit) {
+                best.add(fit);
+            } else if (Fit.BEST_FIRST.compare(fit, best.peek()) < 0) {
+                best.poll();
+                best.add(fit);
+            }
+        }
+        return best.stream().sorted(Fit.BEST_FIRST).map(fit -> fit.space).collect(Collectors.toList());
+    }
+
+    private static int countOccupationsAround(Space space, List<Interval> intervals) {
+        final OccupationIndex index = space.getOccupationIndex();
+        final Set<Occupation> around = new HashSet<>();
+        for (Interval interval : intervals) {
+            around.addAll(index.overlapping(interval.getStartMillis() - AROUND_MILLIS, interval.getEndMillis() + AROUND_MILLIS));
+        }
+        return around.size();
+    }
+
+    public List<Space> searchFreeSpaces(List<Interval> intervals, User user) {
+        final AuthorizedSpaces authorized = AuthorizedSpaces.forOccupations(user);
+        return freeSpaces(Space.getSpaces().filter(authorized::contains), intervals)
+                .sorted(Comparator.comparing(Space::getPresentationSortKey)).collect(Collectors.toList());
+    }
+
+    /**
+     * The spaces matching the given query that the user may occupy and are free during every one of the given intervals,
+     * sorted by presentation name. The query is answered by the attribute index, so only the spaces that match it are
+     * looked at. Since the index may be behind, each of them is checked against the query again before its availability,
+     * and only the free ones are checked for access, through their cached access chains rather than a walk of the whole
+     * tree.
+     */
+    public List<Space> searchFreeSpaces(SpaceQuery query, List<Interval> intervals, User user) {
+        return freeSpaces(Space.query(query).stream().filter(query::matches), intervals)
+                .filter(space -> space.isOccupationMember(user)).sorted(Comparator.comparing(Space::getPresentationSortKey))
+                .collect(Collectors.toList());
+    }
+
+    private static final class Fit {
+        private static final Comparator<Fit> BEST_FIRST = Comparator.comparingInt((Fit fit) -> fit.spare)
+                .thenComparing(fit -> !fit.preferred).thenComparingInt(fit -> fit.occupationsAround)
+                .thenComparing(fit -> fit.space.getPresentationSortKey());
+
+        private final Space space;
+        private final int spare;
+        private final boolean preferred;
+        private final int occupationsAround;
+
+        private Fit(Space space, int spare, boolean preferred, int occupationsAround) {
+            this.space = space;
+            this.spare = spare;
+            this.preferred = preferred;
+            this.occupationsAround = occupationsAround;
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces.ui.services;
+
+import java.util.List;
+
+import org.fenixedu.spaces.domain.occupation.OccupationConflict;
+
+public class OccupationConflictException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<OccupationConflict> conflicts;
+
+    public OccupationConflictException(String message, List<OccupationConflict> conflicts) {
+        super(message);
+        this.conflicts = conflicts;
+    }
+
+    public List<OccupationConflict> getConflicts() {
+        return conflicts;
+    }
+
+}
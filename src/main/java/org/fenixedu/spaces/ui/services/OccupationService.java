@@ -18,9 +18,14 @@
  */
 package org.fenixedu.spaces.ui.services;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -34,6 +39,8 @@ import org.fenixedu.spaces.core.service.NotificationService;
 import org.fenixedu.spaces.domain.Space;
 import org.fenixedu.spaces.domain.SpaceDomainException;
 import org.fenixedu.spaces.domain.occupation.Occupation;
+import org.fenixedu.spaces.domain.occupation.OccupationConflict;
+import org.fenixedu.spaces.domain.occupation.OccupationMonth;
 import org.fenixedu.spaces.domain.occupation.config.ExplicitConfigWithSettings;
 import org.fenixedu.spaces.domain.occupation.config.ExplicitConfigWithSettings.Frequency;
 import org.fenixedu.spaces.domain.occupation.config.ExplicitConfigWithSettings.MonthlyType;
@@ -59,6 +66,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 
 @Service
 public class OccupationService {
@@ -73,6 +81,9 @@ public class OccupationService {
     @Autowired(required = false)
     NotificationService notificationService;
 
+    @Autowired
+    AvailabilityService availabilityService;
+
     public OccupationService() {
         jsonParser = new JsonParser();
         datetimeFormatter = DateTimeFormat.forPattern("dd/MM/yyyy HH:mm");;
@@ -167,9 +178,7 @@ public class OccupationService {
     }
 
     public List<Space> searchFreeSpaces(List<Interval> intervals, User user) {
-        return Space.getSpaces().filter(space -> space.isFree(intervals) && space.isOccupationMember(user))
-                .sorted((o1, o2) -> o1.getPresentationName().toLowerCase().compareTo(o2.getPresentationName().toLowerCase()))
-                .collect(Collectors.toList());
+        return availabilityService.searchFreeSpaces(intervals, user);
     }
 
     @Atomic
@@ -177,12 +186,9 @@ public class OccupationService {
             String events, OccupationRequest request, User user) throws Exception {
         final Set<Space> selectedSpaceSet = selectSpaces(selectedSpaces, user);
         final List<Interval> intervals = selectEvents(events);
+        checkConflicts(selectedSpaceSet, intervals);
         final Occupation occupation = new Occupation(emails, subject, description, parseConfig(config, intervals));
         for (Space space : selectedSpaceSet) {
-            if (!space.isFree(intervals)) {
-                throw new Exception(messageSource.getMessage("error.occupations.rooms.is.not.free", new Object[0],
-                        I18N.getLocale()));
-            }
             occupation.addSpace(space);
         }
         if (request != null) {
@@ -272,11 +278,14 @@ public class OccupationService {
         String spaceNameForSearch = spaceName == null ? null : spaceName.toLowerCase();
         DateTime start = new DateTime(year, month, 1, 0, 0);
         Interval interval = new Interval(start, start.plusMonths(1));
+        // only the spaces of the occupations of the month are checked, each once, through its cached access chain
+        Map<Space, Boolean> authorized = new HashMap<>();
         Predicate<Occupation> userAndSpaceNamePredicate =
-                o -> o.getSpaces().stream().filter(s -> s.isOccupationMember(user)).filter(s -> matches(s, spaceNameForSearch))
-                        .findAny().isPresent();
-        return Bennu.getInstance().getOccupationSet().stream().filter(o -> o.getClass().equals(Occupation.class))
-                .filter(userAndSpaceNamePredicate).filter(o -> o.overlaps(interval))
+                o -> o.getSpaces().stream().filter(s -> matches(s, spaceNameForSearch))
+                        .filter(s -> authorized.computeIfAbsent(s, space -> space.isOccupationMember(user))).findAny()
+                        .isPresent();
+        return OccupationMonth.getOccupations(year, month).filter(o -> o.getClass().equals(Occupation.class))
+                .filter(o -> o.overlaps(interval)).filter(userAndSpaceNamePredicate)
                 .sorted((o1, o2) -> o2.getStart().compareTo(o1.getStart())).collect(Collectors.toList());
     }
 
@@ -342,15 +351,20 @@ public class OccupationService {
         occupation.setDescription(description);
         final Set<Space> selectedSpaceSet = selectSpaces(selectedSpaces, user);
         occupation.getSpaces().stream().forEach(s -> occupation.removeSpace(s));
+        checkConflicts(selectedSpaceSet, occupation.getIntervals());
         for (Space space : selectedSpaceSet) {
-            if (!space.isFree(occupation.getIntervals())) {
-                throw new Exception(messageSource.getMessage("error.occupations.rooms.is.not.free", new Object[0],
-                        I18N.getLocale()));
-            }
             occupation.addSpace(space);
         }
     }
 
+    private void checkConflicts(Set<Space> spaces, List<Interval> intervals) throws OccupationConflictException {
+        final List<OccupationConflict> conflicts = availabilityService.findConflicts(spaces, intervals);
+        if (!conflicts.isEmpty()) {
+            throw new OccupationConflictException(messageSource.getMessage("error.occupations.rooms.is.not.free",
+                    new Object[0], I18N.getLocale()), conflicts);
+        }
+    }
+
     public boolean canManageOccupation(Occupation occupation, User user) {
         return occupation.canManageOccupation(user);
     }
@@ -363,8 +377,8 @@ public class OccupationService {
         occupation.delete();
     }
 
-    public PagedListHolder<OccupationRequest> getBook(List<OccupationRequest> requests, String pageString) {
-        PagedListHolder<OccupationRequest> book = new PagedListHolder<>(requests);
+    public <T> PagedListHolder<T> getBook(List<T> items, String pageString) {
+        PagedListHolder<T> book = new PagedListHolder<>(items);
         book.setPageSize(30);
         int page = 0;
 
@@ -387,37 +401,42 @@ public class OccupationService {
 
     public String[] colors = new String[] { "#FF9999", "#FFCC99", "#FFFF99", "#CCFF99", "#99FF99", "#99FFFF" };
 
-    public String getOccupations(Space space, Interval search) {
-        JsonArray events = new JsonArray();
-        int id = 1;
-        for (Occupation occupation : space.getOccupationSet()) {
-            boolean hasEvents = false;
-            for (Interval interval : occupation.getIntervals()) {
-                if (interval.overlaps(search)) {
-                    JsonObject event = new JsonObject();
-                    String start = new Long(interval.getStart().getMillis() / 1000).toString();
-                    String end = new Long(interval.getEnd().getMillis() / 1000).toString();
-                    event.addProperty("id", id);
-                    event.addProperty("start", start);
-                    event.addProperty("end", end);
-                    event.addProperty("title", occupation.getSubject());
-                    String url = occupation.getUrl();
+    /**
+     * Writes the events of the space within the given interval as a JSON array, one event per interval. Everything about
+     * an event that depends only on its occupation, such as whether the current user can manage it, is computed once per
+     * occupation.
+     */
+    public void writeOccupations(Space space, Interval search, Writer writer) throws IOException {
+        try (JsonWriter json = new JsonWriter(writer)) {
+            json.beginArray();
+            int id = 1;
+            for (Occupation occupation : space.getOccupationSet()) {
+                Iterator<Interval> intervals = occupation.getIntervals(search).iterator();
+                if (!intervals.hasNext()) {
+                    continue;
+                }
+                String title = occupation.getSubject();
+                String url = occupation.getUrl();
+                String info = occupation.getInfo();
+                String backgroundColor = colors[id % colors.length];
+                while (intervals.hasNext()) {
+                    Interval interval = intervals.next();
+                    json.beginObject();
+                    json.name("id").value(id);
+                    json.name("start").value(Long.toString(interval.getStartMillis() / 1000));
+                    json.name("end").value(Long.toString(interval.getEndMillis() / 1000));
+                    json.name("title").value(title);
                     if (url != null && !url.isEmpty()) {
-                        event.addProperty("url", url);
-                    }
-                    event.addProperty("allDay", false);
-                    event.addProperty("backgroundColor", colors[id % colors.length]);
-                    event.addProperty("info", occupation.getInfo());
-                    events.add(event);
-                    if (!hasEvents) {
-                        hasEvents = true;
+                        json.name("url").value(url);
                     }
+                    json.name("allDay").value(false);
+                    json.name("backgroundColor").value(backgroundColor);
+                    json.name("info").value(info);
+                    json.endObject();
                 }
-            }
-            if (hasEvents) {
                 id++;
             }
+            json.endArray();
         }
-        return events.toString();
     }
 }
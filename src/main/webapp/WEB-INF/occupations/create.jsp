@@ -70,6 +70,8 @@
 			
 			$("#config").val(exportConfig(occupationEvents[1]));
 			$("#events").val(JSON.stringify(jsonEvents));
+			$("#capacity").val($("#required-capacity").val());
+			$("#capacity").prop("disabled", $("#capacity").val() === "");
 			$("#form-search-spaces").submit();
 		});
 	})
@@ -82,6 +84,13 @@
 
 <h2><spring:message code="title.create.occupation.select.period"/></h2>
 
+<div class="form-inline">
+	<div class="form-group">
+		<label for="required-capacity"><spring:message code="label.spaces.allocatableCapacity"/></label>
+		<input type="number" min="0" class="form-control" id="required-capacity"/>
+	</div>
+</div>
+
 <button class="btn btn-success" id="search-spaces"><spring:message code="title.create.occupation.search.periods"/></button>
 
 <%@include file="calendar.jsp" %>
@@ -90,6 +99,7 @@
 <form action="${searchUrl}" id="form-search-spaces" method="post">
 	<input type="hidden" name="events" id="events"/>
 	<input type="hidden" name="config" id="config"/>
+	<input type="hidden" name="capacity" id="capacity"/>
 	<c:if test="${not empty request}">
 		<input type="hidden" name="request" value="${request.externalId}"/>
 	</c:if>
@@ -255,6 +255,13 @@
 <c:if test="${not empty errorMessage}">
 	<h3 class="bg-danger"><c:out value="${errorMessage}"/></h3>
 </c:if>
+<c:if test="${not empty conflicts}">
+	<ul class="bg-danger">
+		<c:forEach var="conflict" items="${conflicts}">
+			<li><c:out value="${conflict.space.presentationName}"/>: ${conflict.interval.start.toString('dd/MM/yyyy HH:mm')} - ${conflict.interval.end.toString('dd/MM/yyyy HH:mm')} (<c:out value="${conflict.occupation.subject}"/>)</li>
+		</c:forEach>
+	</ul>
+</c:if>
 
 <h3><spring:message code="title.edit.occupation.request.details"/></h3>
 
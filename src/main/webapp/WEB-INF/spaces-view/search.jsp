@@ -38,7 +38,21 @@
   	</form>
 
 <c:choose>
-	<c:when test="${not empty foundSpaces}">
+	<c:when test="${not empty foundSpaces.pageList}">
+			<c:url var="searchPageUrl" value="${searchUrl}"><c:param name="name" value="${name}"/></c:url>
+			<ul class="pagination">
+				<li><a href="${searchPageUrl}&p=f">&laquo;</a></li>
+				<c:forEach var="page" begin="${foundSpaces.firstLinkedPage}" end="${foundSpaces.lastLinkedPage}">
+					<c:set var="pageNumber" value="${page+1}"/>
+					<c:if test="${page == foundSpaces.page}">
+						<li class="active"><a href="${searchPageUrl}&p=${pageNumber}">${pageNumber}</a></li>
+					</c:if>
+					<c:if test="${page != foundSpaces.page}">
+						<li><a href="${searchPageUrl}&p=${pageNumber}">${pageNumber}</a></li>
+					</c:if>
+				</c:forEach>
+				<li><a href="${searchPageUrl}&p=l">&raquo;</a></li>
+			</ul>
 			<table class="table">
 				<thead>
 					<tr>
@@ -49,7 +63,7 @@
 					</tr>
 				</thead>
 				<tbody>
-					<c:forEach var="space" items="${foundSpaces}">
+					<c:forEach var="space" items="${foundSpaces.pageList}">
 						<spring:url value="/spaces-view/view/${space.externalId}" var="viewUrl" />
 						<spring:url value="/spaces-view/schedule/${space.externalId}" var="scheduleUrl" />
 						<spring:url value="/spaces/edit/${space.externalId}" var="editUrl" />
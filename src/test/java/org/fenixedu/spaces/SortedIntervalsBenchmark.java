@@ -0,0 +1,93 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.fenixedu.spaces.domain.occupation.config.SortedIntervals;
+import org.fenixedu.spaces.domain.occupation.config.WeeklyConfig;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.Interval;
+import org.joda.time.LocalTime;
+
+/**
+ * Compares the nested loop overlap check with the sorted interval sweep on semester long weekly bookings. Not a unit
+ * test, so it is left out of the test run; run it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.fenixedu.spaces.SortedIntervalsBenchmark}.
+ */
+public class SortedIntervalsBenchmark {
+
+    private static final int WARMUP_ROUNDS = 5000;
+    private static final int ROUNDS = 20000;
+
+    private static List<Interval> semester(LocalTime start, Integer... daysOfWeek) {
+        DateTime first = new DateTime(2014, 9, 15, 0, 0);
+        return new WeeklyConfig(new Interval(first, first.plusWeeks(15)), start, start.plusHours(2), 1, Arrays.asList(daysOfWeek))
+                .getIntervals();
+    }
+
+    private static boolean nestedOverlaps(List<Interval> intervals, List<Interval> others) {
+        for (Interval other : others) {
+            for (Interval interval : intervals) {
+                if (interval.overlaps(other)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long nestedMillis(List<Interval> lecture, List<Interval> lab, int rounds) {
+        long time = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            if (nestedOverlaps(lecture, lab)) {
+                throw new IllegalStateException("the bookings overlap");
+            }
+        }
+        return (System.nanoTime() - time) / 1000000;
+    }
+
+    private static long sortedMillis(SortedIntervals lecture, List<Interval> lab, int rounds) {
+        long time = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            if (lecture.overlaps(lab)) {
+                throw new IllegalStateException("the bookings overlap");
+            }
+        }
+        return (System.nanoTime() - time) / 1000000;
+    }
+
+    public static void main(String[] args) {
+        // a lecture three times a week against a lab booked twice a week in the same room, for a whole semester
+        List<Interval> lecture =
+                semester(new LocalTime(9, 0), DateTimeConstants.MONDAY, DateTimeConstants.WEDNESDAY, DateTimeConstants.FRIDAY);
+        List<Interval> lab = semester(new LocalTime(14, 0), DateTimeConstants.TUESDAY, DateTimeConstants.THURSDAY);
+        SortedIntervals sorted = SortedIntervals.of(lecture);
+
+        nestedMillis(lecture, lab, WARMUP_ROUNDS);
+        sortedMillis(sorted, lab, WARMUP_ROUNDS);
+        long nested = nestedMillis(lecture, lab, ROUNDS);
+        long merged = sortedMillis(sorted, lab, ROUNDS);
+
+        System.out.printf("%d x %d intervals, %d rounds: nested loop %d ms, sorted sweep %d ms%n", lecture.size(), lab.size(),
+                ROUNDS, nested, merged);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.fenixedu.spaces.domain.occupation.OccupancyBitmap;
+import org.joda.time.DateTime;
+import org.joda.time.Interval;
+import org.junit.Test;
+
+public class TestOccupancyBitmap {
+
+    private static List<Interval> randomIntervals(Random random, DateTime origin) {
+        List<Interval> intervals = new ArrayList<>();
+        for (int i = random.nextInt(5); i > 0; i--) {
+            DateTime start = origin.plusMinutes(random.nextInt(60 * 24 * 3));
+            intervals.add(new Interval(start, start.plusMinutes(random.nextInt(60 * 26))));
+        }
+        return intervals;
+    }
+
+    private static boolean overlaps(List<Interval> intervals, List<Interval> others) {
+        for (Interval interval : intervals) {
+            for (Interval other : others) {
+                if (interval.overlaps(other)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testDisjointBitmapsMeanNoOverlap() {
+        Random random = new Random(42);
+        DateTime origin = new DateTime(2014, 9, 15, 0, 0);
+        for (int i = 0; i < 5000; i++) {
+            List<Interval> intervals = randomIntervals(random, origin);
+            List<Interval> others = randomIntervals(random, origin);
+            if (overlaps(intervals, others)) {
+                assertTrue(OccupancyBitmap.of(intervals).intersects(OccupancyBitmap.of(others)));
+            }
+        }
+    }
+
+    @Test
+    public void testSlotBoundaries() {
+        DateTime nine = new DateTime(2014, 9, 15, 9, 0);
+        OccupancyBitmap morning = OccupancyBitmap.of(Arrays.asList(new Interval(nine, nine.plusHours(1))));
+        assertFalse(morning.intersects(OccupancyBitmap.of(Arrays.asList(new Interval(nine.plusHours(1), nine.plusHours(2))))));
+        assertFalse(morning.intersects(OccupancyBitmap.of(Arrays.asList(new Interval(nine.minusHours(1), nine)))));
+        assertTrue(morning.intersects(OccupancyBitmap.of(Arrays.asList(new Interval(nine.plusMinutes(59), nine.plusHours(2))))));
+        assertTrue(morning.intersects(OccupancyBitmap.of(Arrays.asList(new Interval(nine.plusMinutes(30), nine.plusMinutes(30))))));
+    }
+
+    @Test
+    public void testRequestAgainstLongHistory() {
+        DateTime nine = new DateTime(2010, 9, 13, 9, 0);
+        List<Interval> history = new ArrayList<>();
+        for (int week = 0; week < 52 * 5; week++) {
+            history.add(new Interval(nine.plusWeeks(week), nine.plusWeeks(week).plusHours(2)));
+        }
+        OccupancyBitmap bitmap = OccupancyBitmap.of(history);
+        DateTime lecture = nine.plusWeeks(200);
+        assertTrue(bitmap.intersects(OccupancyBitmap.of(Arrays.asList(new Interval(lecture.plusHours(1), lecture.plusHours(3))))));
+        assertTrue(OccupancyBitmap.of(Arrays.asList(new Interval(lecture, lecture.plusMinutes(15)))).intersects(bitmap));
+        assertFalse(bitmap.intersects(OccupancyBitmap.of(Arrays.asList(new Interval(lecture.plusDays(1), lecture.plusDays(1)
+                .plusHours(2)), new Interval(lecture.plusHours(2), lecture.plusHours(4))))));
+        assertFalse(bitmap.intersects(OccupancyBitmap.of(Arrays.asList(new Interval(nine.plusWeeks(52 * 5), nine.plusWeeks(
+                52 * 5).plusHours(2))))));
+    }
+}
@@ -18,15 +18,22 @@
  */
 package org.fenixedu.spaces;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import org.fenixedu.spaces.domain.occupation.config.DailyConfig;
+import org.fenixedu.spaces.domain.occupation.config.ExplicitConfig;
 import org.fenixedu.spaces.domain.occupation.config.ExplicitConfigWithSettings;
 import org.fenixedu.spaces.domain.occupation.config.ExplicitConfigWithSettings.MonthlyType;
 import org.fenixedu.spaces.domain.occupation.config.OccupationConfig;
+import org.fenixedu.spaces.domain.occupation.config.WeeklyConfig;
+import org.fenixedu.spaces.domain.occupation.config.YearlyConfig;
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.joda.time.LocalTime;
 import org.junit.Rule;
@@ -36,7 +43,9 @@ import org.junit.rules.TestWatcher;
 import org.junit.runner.Description;
 
 import com.google.common.collect.HashMultiset;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 public class TestOccupationSpec {
@@ -202,4 +211,105 @@ public class TestOccupationSpec {
 
         OccupationConfig internalize = config.internalize(externalize);
     }
+
+    @Test
+    public void testCompactIntervals() {
+        DateTime start = new DateTime(2014, 9, 15, 10, 0);
+        List<Interval> intervals = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            intervals.add(new Interval(start.plusWeeks(i), start.plusWeeks(i).plusMinutes(90)));
+        }
+        ExplicitConfigWithSettings config =
+                new ExplicitConfigWithSettings(start, start.plusWeeks(14), Boolean.FALSE, 1,
+                        ExplicitConfigWithSettings.Frequency.WEEKLY, Arrays.asList(1), null, intervals);
+
+        JsonObject json = config.externalize().getAsJsonObject();
+        assertEquals("settings", json.get("type").getAsString());
+        assertTrue(json.get("intervals").getAsJsonArray().get(0).isJsonPrimitive());
+        assertEquals(intervals, OccupationConfig.internalize(new JsonParser().parse(json.toString())).getIntervals());
+    }
+
+    @Test
+    public void testLegacyConfig() {
+        DateTime start = new DateTime(2014, 9, 15, 10, 0);
+        Interval interval = new Interval(start, start.plusHours(2));
+        JsonObject intervalJson = new JsonObject();
+        intervalJson.addProperty("start", interval.getStart().toString());
+        intervalJson.addProperty("end", interval.getEnd().toString());
+        JsonArray intervalsJson = new JsonArray();
+        intervalsJson.add(intervalJson);
+        JsonObject json = new JsonObject();
+        json.addProperty("start", start.toString());
+        json.addProperty("end", start.plusHours(2).toString());
+        json.addProperty("allDay", false);
+        json.addProperty("frequency", "NEVER");
+        json.add("intervals", intervalsJson);
+        json.addProperty("type", ExplicitConfigWithSettings.class.getName());
+
+        assertEquals(Arrays.asList(interval), OccupationConfig.internalize(json).getIntervals());
+    }
+
+    @Test
+    public void testReadersMatchReflection() {
+        DateTime start = new DateTime(2014, 9, 15, 10, 0, DateTimeZone.forOffsetHours(1));
+        Interval interval = new Interval(start, start.plusMonths(4));
+        LocalTime startTime = new LocalTime(10, 0);
+        LocalTime endTime = new LocalTime(11, 30);
+        List<Interval> intervals =
+                Arrays.asList(new Interval(start, start.plusHours(1)), new Interval(start.plusDays(1).plusSeconds(1), start.plusDays(2)));
+        List<OccupationConfig> configs =
+                Arrays.asList(new DailyConfig(interval, startTime, endTime, 2), new WeeklyConfig(interval, startTime, endTime, 1,
+                        Arrays.asList(1, 3)), new YearlyConfig(interval, startTime, endTime, 1), new ExplicitConfig(null,
+                        intervals), new ExplicitConfigWithSettings(start.withZone(DateTimeZone.UTC), start.plusDays(2),
+                        Boolean.TRUE, intervals));
+        for (OccupationConfig config : configs) {
+            JsonElement json = config.externalize();
+            OccupationConfig read = OccupationConfig.internalize(new JsonParser().parse(json.toString()));
+            OccupationConfig reflected = OccupationConfig.gson().fromJson(json, config.getClass());
+            assertEquals(reflected.getClass(), read.getClass());
+            assertEquals(reflected.externalize(), read.externalize());
+            assertEquals(reflected.getIntervals(), read.getIntervals());
+            assertEquals(reflected.getStart(), read.getStart());
+        }
+
+        JsonObject json = configs.get(4).externalize().getAsJsonObject();
+        json.addProperty("start", "2014-09-15T10:00+01:00");
+        assertEquals(DateTime.parse("2014-09-15T10:00+01:00"), OccupationConfig.internalize(json).getStart());
+    }
+
+    private static OccupationConfig monthly(Interval interval, String monthlyType) {
+        JsonObject intervalJson = new JsonObject();
+        intervalJson.addProperty("start", interval.getStart().toString());
+        intervalJson.addProperty("end", interval.getEnd().toString());
+        JsonObject json = new JsonObject();
+        json.addProperty("type", "monthly");
+        json.add("interval", intervalJson);
+        json.addProperty("startTime", "10:00:00");
+        json.addProperty("endTime", "11:00:00");
+        json.addProperty("repeatsEvery", 1);
+        json.addProperty("monthlyType", monthlyType);
+        return OccupationConfig.internalize(json);
+    }
+
+    @Test
+    public void testIntervalsWithinAcrossDecember() {
+        DateTime start = new DateTime(2014, 10, 31, 0, 0);
+        Interval interval = new Interval(start, start.plusMonths(6));
+        for (String monthlyType : Arrays.asList("DAY_OF_WEEK", "DAY_OF_MONTH")) {
+            List<Interval> generated = monthly(interval, monthlyType).getIntervals();
+            for (DateTime day = start.minusWeeks(1); day.isBefore(interval.getEnd()); day = day.plusDays(3)) {
+                Interval window = new Interval(day, day.plusWeeks(1));
+                List<Interval> expected = new ArrayList<>();
+                generated.stream().filter(occurrence -> occurrence.overlaps(window)).forEach(expected::add);
+                List<Interval> walked = new ArrayList<>();
+                monthly(interval, monthlyType).intervalsWithin(window).forEach(walked::add);
+                assertEquals(HashMultiset.create(expected), HashMultiset.create(walked));
+            }
+        }
+        WeeklyConfig weekly = new WeeklyConfig(interval, new LocalTime(10, 0), new LocalTime(11, 0), 1, Arrays.asList(1, 5));
+        Interval window = new Interval(new DateTime(2014, 12, 29, 0, 0), new DateTime(2015, 1, 3, 0, 0));
+        List<Interval> walked = new ArrayList<>();
+        weekly.intervalsWithin(window).forEach(walked::add);
+        assertEquals(2, walked.size());
+    }
 }
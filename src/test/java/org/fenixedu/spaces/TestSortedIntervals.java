@@ -0,0 +1,93 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.fenixedu.spaces.domain.occupation.config.SortedIntervals;
+import org.fenixedu.spaces.domain.occupation.config.WeeklyConfig;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeConstants;
+import org.joda.time.Interval;
+import org.joda.time.LocalTime;
+import org.junit.Test;
+
+public class TestSortedIntervals {
+
+    private static List<Interval> randomIntervals(Random random, DateTime origin, int count) {
+        List<Interval> intervals = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DateTime start = origin.plusMinutes(random.nextInt(60 * 24 * 30));
+            intervals.add(new Interval(start, start.plusMinutes(random.nextInt(60 * 30))));
+        }
+        return intervals;
+    }
+
+    private static boolean nestedOverlaps(List<Interval> intervals, List<Interval> others) {
+        for (Interval other : others) {
+            for (Interval interval : intervals) {
+                if (interval.overlaps(other)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testSameAnswersAsNestedLoop() {
+        Random random = new Random(7);
+        DateTime origin = new DateTime(2014, 9, 15, 0, 0);
+        for (int i = 0; i < 5000; i++) {
+            List<Interval> intervals = randomIntervals(random, origin, random.nextInt(20));
+            List<Interval> others = randomIntervals(random, origin, random.nextInt(4));
+            SortedIntervals sorted = SortedIntervals.of(intervals);
+            assertEquals(nestedOverlaps(intervals, others), sorted.overlaps(others));
+            for (Interval other : others) {
+                assertEquals(nestedOverlaps(intervals, Arrays.asList(other)), sorted.overlaps(other));
+                List<Interval> within = new ArrayList<>();
+                sorted.within(other).forEach(within::add);
+                assertEquals(intervals.stream().filter(interval -> interval.overlaps(other)).count(), within.size());
+            }
+        }
+    }
+
+    private static List<Interval> semester(LocalTime start, Integer... daysOfWeek) {
+        DateTime first = new DateTime(2014, 9, 15, 0, 0);
+        return new WeeklyConfig(new Interval(first, first.plusWeeks(15)), start, start.plusHours(2), 1, Arrays.asList(daysOfWeek))
+                .getIntervals();
+    }
+
+    @Test
+    public void testSemesterWeeklyBookings() {
+        // a lecture three times a week against a lab booked twice a week in the same room, for a whole semester
+        List<Interval> lecture =
+                semester(new LocalTime(9, 0), DateTimeConstants.MONDAY, DateTimeConstants.WEDNESDAY, DateTimeConstants.FRIDAY);
+        List<Interval> lab = semester(new LocalTime(14, 0), DateTimeConstants.TUESDAY, DateTimeConstants.THURSDAY);
+        List<Interval> clash = semester(new LocalTime(10, 0), DateTimeConstants.FRIDAY);
+        SortedIntervals sorted = SortedIntervals.of(lecture);
+        assertEquals(nestedOverlaps(lecture, lab), sorted.overlaps(lab));
+        assertEquals(nestedOverlaps(lecture, clash), sorted.overlaps(clash));
+    }
+}
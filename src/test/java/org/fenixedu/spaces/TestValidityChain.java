@@ -0,0 +1,201 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.fenixedu.spaces.domain.ValidityChain;
+import org.junit.Test;
+
+public class TestValidityChain {
+
+    static final class Node {
+        private final String name;
+        private final long start;
+        private final long end;
+        private Node previous;
+
+        Node(String name, long start, long end) {
+            this.name = name;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    static final class Nodes implements ValidityChain.Nodes<Node> {
+        int created;
+
+        @Override
+        public long start(Node node) {
+            return node.start;
+        }
+
+        @Override
+        public long end(Node node) {
+            return node.end;
+        }
+
+        @Override
+        public Node previous(Node node) {
+            return node.previous;
+        }
+
+        @Override
+        public void link(Node node, Node previous) {
+            node.previous = previous;
+        }
+
+        @Override
+        public Node copy(Node node) {
+            return create(node.name, node.start, node.end);
+        }
+
+        @Override
+        public Node keepLeft(Node node, Node inserted) {
+            return create(node.name, node.start, inserted.start);
+        }
+
+        @Override
+        public Node keepRight(Node node, Node inserted) {
+            return create(node.name, inserted.end, node.end);
+        }
+
+        private Node create(String name, long start, long end) {
+            created++;
+            return new Node(name, start, end);
+        }
+    }
+
+    private static String valueAt(Node head, long instant) {
+        for (Node node = head; node != null; node = node.previous) {
+            if (node.start <= instant && instant < node.end) {
+                return node.name;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> dump(Node head) {
+        List<String> nodes = new ArrayList<>();
+        for (Node node = head; node != null; node = node.previous) {
+            nodes.add(node.name + "[" + node.start + "," + node.end + ")");
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testSameAsIntervalMap() {
+        Random random = new Random(13);
+        int days = 60;
+        for (int i = 0; i < 2000; i++) {
+            Nodes nodes = new Nodes();
+            String[] expected = new String[days];
+            Node head = null;
+            List<Node> heads = new ArrayList<>();
+            List<List<String>> dumps = new ArrayList<>();
+            for (int j = random.nextInt(12); j >= 0; j--) {
+                long start = random.nextInt(days);
+                long end = random.nextInt(4) == 0 ? Long.MAX_VALUE : start + random.nextInt(days / 3);
+                Node inserted = new Node("n" + j, start, end);
+                for (long day = start; day < Math.min(end, days); day++) {
+                    expected[(int) day] = inserted.name;
+                }
+                if (head != null) {
+                    heads.add(head);
+                    dumps.add(dump(head));
+                }
+                head = head == null ? inserted : ValidityChain.insert(head, inserted, nodes);
+
+                for (int day = 0; day < days; day++) {
+                    assertEquals(expected[day], valueAt(head, day));
+                }
+                for (Node node = head; node != null && node.previous != null; node = node.previous) {
+                    assertTrue(node.previous.end <= node.start);
+                }
+            }
+            // older chains are left as they were
+            for (int j = 0; j < heads.size(); j++) {
+                assertEquals(dumps.get(j), dump(heads.get(j)));
+            }
+        }
+    }
+
+    /**
+     * Inserts like {@link ValidityChain#insert} but copies every node, which is what Space.add used to do.
+     */
+    static Node copyingInsert(Node head, Node inserted, Nodes nodes) {
+        List<Node> created = new ArrayList<>();
+        boolean placed = false;
+        for (Node current = head; current != null; current = current.previous) {
+            if (current.start >= inserted.end) {
+                created.add(nodes.copy(current));
+            } else if (current.end <= inserted.start) {
+                if (!placed) {
+                    created.add(inserted);
+                    placed = true;
+                }
+                created.add(nodes.copy(current));
+            } else {
+                if (current.end > inserted.end) {
+                    created.add(nodes.keepRight(current, inserted));
+                }
+                if (!placed) {
+                    created.add(inserted);
+                    placed = true;
+                }
+                if (current.start < inserted.start) {
+                    created.add(nodes.keepLeft(current, inserted));
+                }
+            }
+        }
+        if (!placed) {
+            created.add(inserted);
+        }
+        for (int i = 0; i < created.size(); i++) {
+            nodes.link(created.get(i), i + 1 < created.size() ? created.get(i + 1) : null);
+        }
+        return created.get(0);
+    }
+
+    @Test
+    public void testWeeklyEdits() {
+        // the current information of a space edited every week for ten years
+        int weeks = 520;
+        Nodes copying = new Nodes();
+        Nodes sharing = new Nodes();
+
+        Node copyingHead = new Node("w0", 0, Long.MAX_VALUE);
+        for (int week = 1; week < weeks; week++) {
+            copyingHead = copyingInsert(copyingHead, new Node("w" + week, week, Long.MAX_VALUE), copying);
+        }
+
+        Node sharingHead = new Node("w0", 0, Long.MAX_VALUE);
+        for (int week = 1; week < weeks; week++) {
+            sharingHead = ValidityChain.insert(sharingHead, new Node("w" + week, week, Long.MAX_VALUE), sharing);
+        }
+
+        assertEquals(dump(copyingHead), dump(sharingHead));
+        assertEquals(weeks - 1, sharing.created);
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2014 Instituto Superior Técnico
+ *
+ * This file is part of FenixEdu Spaces.
+ *
+ * FenixEdu Spaces is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * FenixEdu Spaces is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with FenixEdu Spaces.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.fenixedu.spaces;
+
+import org.fenixedu.spaces.TestValidityChain.Node;
+import org.fenixedu.spaces.TestValidityChain.Nodes;
+import org.fenixedu.spaces.domain.ValidityChain;
+
+/**
+ * Compares inserting into the information history by copying every node, which is what Space.add used to do, with the
+ * shared insertion of {@link ValidityChain}, on the history of a space edited every week for ten years. Not a unit test,
+ * so it is left out of the test run; run it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.fenixedu.spaces.ValidityChainBenchmark}.
+ */
+public class ValidityChainBenchmark {
+
+    private static final int WEEKS = 520;
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static long copyingMillis(Nodes nodes) {
+        long time = System.nanoTime();
+        Node head = new Node("w0", 0, Long.MAX_VALUE);
+        for (int week = 1; week < WEEKS; week++) {
+            head = TestValidityChain.copyingInsert(head, new Node("w" + week, week, Long.MAX_VALUE), nodes);
+        }
+        return (System.nanoTime() - time) / 1000000;
+    }
+
+    private static long sharingMillis(Nodes nodes) {
+        long time = System.nanoTime();
+        Node head = new Node("w0", 0, Long.MAX_VALUE);
+        for (int week = 1; week < WEEKS; week++) {
+            head = ValidityChain.insert(head, new Node("w" + week, week, Long.MAX_VALUE), nodes);
+        }
+        return (System.nanoTime() - time) / 1000000;
+    }
+
+    public static void main(String[] args) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            copyingMillis(new Nodes());
+            sharingMillis(new Nodes());
+        }
+        Nodes copying = new Nodes();
+        Nodes sharing = new Nodes();
+        long copyingTime = copyingMillis(copying);
+        long sharingTime = sharingMillis(sharing);
+
+        System.out.printf("%d weekly edits: copying %d nodes in %d ms, sharing %d nodes in %d ms%n", WEEKS, copying.created,
+                copyingTime, sharing.created, sharingTime);
+    }
+}